@@ -59,6 +59,13 @@ public interface IGame {
 
         IGame build();
 
+        /**
+         * @return The seed that determines the random aspects of the game's world, such as where resources are deposited.
+         */
+        long getSeed();
+
+        IBuilder setSeed(long seed);
+
         Size getLevelSize();
 
         IBuilder setLevelSize(Size levelSize);
@@ -87,6 +94,10 @@ public interface IGame {
 
         IBuilder setUnitConfig(PublicGameUnitConfig unitConfig);
 
+        LevelDensity getLevelDensity(LevelType levelType);
+
+        IBuilder setLevelDensity(LevelType levelType, LevelDensity levelDensity);
+
         int nextPlayerID();
     }
 
@@ -139,4 +150,21 @@ public interface IGame {
         NONE,
         BASIC
     }
+
+
+    /**
+     * How a level keeps its tiles in memory.
+     */
+    enum LevelDensity {
+
+        /**
+         * Every tile of the level is created up-front.  Best for levels where most tiles are used.
+         */
+        DENSE,
+
+        /**
+         * Tiles are created on demand and only the contents and resources placed on them are stored.  Best for mostly empty levels.
+         */
+        SPARSE
+    }
 }
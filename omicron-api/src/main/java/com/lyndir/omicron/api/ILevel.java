@@ -1,9 +1,11 @@
 package com.lyndir.omicron.api;
 
 import com.google.common.collect.ImmutableMap;
-import com.lyndir.lhunath.opal.math.Size;
-import com.lyndir.lhunath.opal.math.Vec2;
+import com.lyndir.lhunath.opal.math.*;
+import com.lyndir.omicron.api.util.RadiusOffsets;
 import java.util.Optional;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 
 /**
@@ -13,6 +15,11 @@ import java.util.Optional;
  */
 public interface ILevel {
 
+    /**
+     * The width and height, in tiles, of the square chunks a level is divided into for tracking changes.
+     */
+    int CHUNK_SIZE = 32;
+
     /**
      * @return The maximum dimensions for the tiles in this level.
      */
@@ -41,4 +48,194 @@ public interface ILevel {
 
         return Optional.of( getTilesByPosition().get( position ) );
     }
+
+    /**
+     * Get the tile at the given coordinates in this level.
+     *
+     * @param x The horizontal coordinate of the tile to get.
+     * @param y The vertical coordinate of the tile to get.
+     *
+     * @return {@link Optional#empty()} if the coordinates are outside of the bounds of this level.
+     */
+    default Optional<? extends ITile> getTile(final int x, final int y) {
+        int index = tileIndex( x, y );
+        if (index < 0)
+            return Optional.empty();
+
+        return Optional.of( tileAt( index ) );
+    }
+
+    /**
+     * Get the tile at the given index in this level.
+     *
+     * @param index The index of the tile, as determined by {@link #tileIndex(int, int)}.
+     *
+     * @return The tile at the given index.
+     *
+     * @throws IndexOutOfBoundsException If the index does not identify a tile in this level.
+     */
+    default ITile tileAt(final int index) {
+        int width = getSize().getWidth();
+        if (index < 0 || index >= width * getSize().getHeight())
+            throw new IndexOutOfBoundsException( "No tile at index: " + index );
+
+        return getTilesByPosition().get( Vec2.create( index % width, index / width ) );
+    }
+
+    /**
+     * @param position The position of a tile in this level.
+     *
+     * @return The index of the tile at the given position in this level, or {@code -1} if the position is outside of the bounds of this
+     * level.
+     */
+    default int tileIndex(final Vec2 position) {
+        return tileIndex( position.getX(), position.getY() );
+    }
+
+    /**
+     * Tiles are indexed row by row: the tile at {@code (x, y)} has index {@code y * width + x}.
+     *
+     * @param x The horizontal coordinate of a tile in this level.
+     * @param y The vertical coordinate of a tile in this level.
+     *
+     * @return The index of the tile at the given coordinates in this level, or {@code -1} if the coordinates are outside of the bounds of
+     * this level.
+     */
+    default int tileIndex(final int x, final int y) {
+        Size size = getSize();
+        if (x < 0 || y < 0 || x >= size.getWidth() || y >= size.getHeight())
+            return -1;
+
+        return y * size.getWidth() + x;
+    }
+
+    /**
+     * @param index The index of a tile in this level.
+     * @param side  The side of the tile to find the neighbour tile at.
+     *
+     * @return The index of the tile adjacent to the given tile on the given side, or {@code -1} if there is no such tile in this level.
+     */
+    default int neighbourIndex(final int index, final Side side) {
+        int width = getSize().getWidth();
+        Vec2 delta = side.getDelta();
+        return tileIndex( index % width + delta.getX(), index / width + delta.getY() );
+    }
+
+    /**
+     * A variant of {@link #neighbourIndex(int, Side)} for callers that already know the position of the tile, such as searches that visit
+     * the neighbours of each tile they reach.
+     *
+     * @param index The index of a tile in this level.
+     * @param x     The x coordinate of the tile.
+     * @param y     The y coordinate of the tile.
+     * @param side  The side of the tile to find the neighbour tile at.
+     *
+     * @return The index of the tile adjacent to the given tile on the given side, or {@code -1} if there is no such tile in this level.
+     */
+    default int neighbourIndex(final int index, final int x, final int y, final Side side) {
+        Vec2 delta = side.getDelta();
+        return tileIndex( x + delta.getX(), y + delta.getY() );
+    }
+
+    /**
+     * Visit the indexes of all the tiles adjacent to a tile.
+     *
+     * @param index  The index of the tile whose neighbours to visit.
+     * @param action The operation to perform with the index of each neighbouring tile.
+     */
+    default void forEachNeighbour(final int index, final IntConsumer action) {
+        int width = getSize().getWidth(), x = index % width, y = index / width;
+        for (final Side side : Side.values()) {
+            int neighbourIndex = neighbourIndex( index, x, y, side );
+            if (neighbourIndex >= 0)
+                action.accept( neighbourIndex );
+        }
+    }
+
+    /**
+     * Visit the indexes of all the tiles at most the given distance away from a tile, including the tile itself.  Tiles nearer to the
+     * given tile are visited first.
+     *
+     * @param index  The index of the tile at the center of the disc.
+     * @param radius The maximum distance from the center tile of the tiles to visit.
+     * @param action The operation to perform with the index of each tile in the disc.
+     */
+    default void forEachTileInRadius(final int index, final int radius, final IntConsumer action) {
+        Size size = getSize();
+        RadiusOffsets.upTo( radius )
+                     .forEach( size.getWidth(), size.getHeight(), index % size.getWidth(), index / size.getWidth(), 0, radius, action );
+    }
+
+    /**
+     * Visit the indexes of all the tiles exactly the given distance away from a tile.
+     *
+     * @param index  The index of the tile at the center of the ring.
+     * @param radius The distance from the center tile of the tiles to visit.
+     * @param action The operation to perform with the index of each tile in the ring.
+     */
+    default void forEachTileAtRadius(final int index, final int radius, final IntConsumer action) {
+        Size size = getSize();
+        RadiusOffsets.upTo( radius )
+                     .forEach( size.getWidth(), size.getHeight(), index % size.getWidth(), index / size.getWidth(), radius, radius,
+                               action );
+    }
+
+    /**
+     * The version of a level increases whenever the contents or resources of one of its tiles change.
+     *
+     * @return The current version of this level, or {@code 0} if this level does not track changes.
+     *
+     * @see #changedChunks(long)
+     */
+    default long getVersion() {
+        return 0;
+    }
+
+    /**
+     * @return The amount of chunks this level is divided into.
+     */
+    default int getChunkCount() {
+        Size size = getSize();
+        return ((size.getWidth() + CHUNK_SIZE - 1) / CHUNK_SIZE) * ((size.getHeight() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+
+    /**
+     * Chunks are indexed row by row, like tiles.
+     *
+     * @param index The index of a tile in this level.
+     *
+     * @return The index of the chunk that holds the tile.
+     */
+    default int chunkIndex(final int index) {
+        int width = getSize().getWidth();
+        return (index / width / CHUNK_SIZE) * ((width + CHUNK_SIZE - 1) / CHUNK_SIZE) + index % width / CHUNK_SIZE;
+    }
+
+    /**
+     * Find the chunks that need to be read again by a client that last read this level at the given version.  Levels that do not track
+     * changes report all of their chunks.
+     *
+     * @param sinceVersion The {@link #getVersion()} of this level when the client last read it.
+     *
+     * @return The indexes of the chunks with tiles that changed after the given version, in ascending order.
+     */
+    default IntStream changedChunks(final long sinceVersion) {
+        return IntStream.range( 0, getChunkCount() );
+    }
+
+    /**
+     * Visit the indexes of all the tiles in a chunk.
+     *
+     * @param chunk  The index of the chunk whose tiles to visit.
+     * @param action The operation to perform with the index of each tile in the chunk.
+     */
+    default void forEachTileInChunk(final int chunk, final IntConsumer action) {
+        Size size = getSize();
+        int chunksX = (size.getWidth() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int minX = chunk % chunksX * CHUNK_SIZE, minY = chunk / chunksX * CHUNK_SIZE;
+        int maxX = Math.min( minX + CHUNK_SIZE, size.getWidth() ), maxY = Math.min( minY + CHUNK_SIZE, size.getHeight() );
+        for (int y = minY; y < maxY; ++y)
+            for (int x = minX; x < maxX; ++x)
+                action.accept( y * size.getWidth() + x );
+    }
 }
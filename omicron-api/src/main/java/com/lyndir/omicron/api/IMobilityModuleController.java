@@ -17,6 +17,8 @@
 package com.lyndir.omicron.api;
 
 import com.lyndir.omicron.api.util.PathUtils;
+import com.lyndir.omicron.api.util.Reachability;
+import java.util.Optional;
 
 
 /**
@@ -32,12 +34,46 @@ public interface IMobilityModuleController extends IModuleController<IMobilityMo
     ILeveling leveling(LevelType levelType);
 
     /**
-     * Move the unit to an adjacent tile.
+     * Move the unit to a tile of any level, along the cheapest path through all levels.  The path may level up or down along the way
+     * where that is cheaper than moving around in one level.
      *
-     * @param target The side of the adjacent tile relative to the current.
+     * @param target The tile to move to.
      */
     IMovement movement(ITile target);
 
+    /**
+     * Find all the tiles in the unit's level that it can move to with its remaining speed this turn.
+     *
+     * This is a single search, so prefer it over calling {@link #movement(ITile)} for every candidate tile.  While the unit and its level
+     * do not change, {@link #movement(ITile)} reuses the result to find its paths in the unit's level.
+     *
+     * @return The reachable tiles, with the cost of and the path to each.
+     */
+    Reachability reachableTiles();
+
+    /**
+     * Give the unit a standing order to go to a tile, over as many turns as it takes.
+     *
+     * The route is planned once.  At the start of every turn, the unit walks on along it as far as its speed allows, working its way
+     * around tiles that have become blocked since, or waiting for them to clear up.  The order ends when the unit arrives, when it is
+     * cancelled or when the target is seen to be occupied.  A new order replaces the current one.
+     *
+     * @param target The tile to go to.
+     *
+     * @return false if the target is seen to be occupied, in which case the unit has no order.
+     */
+    boolean goTo(ITile target);
+
+    /**
+     * @return The tile the unit has a standing order to go to, or empty if it has no such order.
+     */
+    Optional<? extends ITile> getGoToTarget();
+
+    /**
+     * Cancel the unit's standing order to go to a tile, if it has one.
+     */
+    void cancelGoTo();
+
     interface ILeveling {
 
         boolean isPossible();
@@ -1,6 +1,9 @@
 package com.lyndir.omicron.api;
 
 import com.lyndir.omicron.api.util.Maybe;
+import com.lyndir.omicron.api.view.GameObjectInfo;
+import java.util.Map;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 
@@ -24,6 +27,40 @@ public interface IPlayerController extends GameObserver {
      */
     Stream<? extends IGameObject> playerObjectsObservableBy(GameObserver observer);
 
+    /**
+     * Enumerate the tiles of a level that this player can observe, as tile indexes.
+     *
+     * @param level The level whose tiles to enumerate.
+     *
+     * @return The indexes of the observable tiles of the level (see {@link ILevel#tileAt(int)}), each index once, in ascending order.
+     *
+     * @see #observableTiles()
+     */
+    IntStream observableTileIndexes(ILevel level);
+
+    /**
+     * Take a snapshot of the objects this player can observe, authorized once for the whole batch.
+     *
+     * If this controller's player is not the current player, only the objects the current player can observe as well are included.
+     *
+     * @return A snapshot of each observed object and its modules, whose getters perform no further checks.
+     */
+    Stream<GameObjectInfo> observedObjects();
+
+    /**
+     * Move many of this player's objects at once.
+     *
+     * The paths are searched in parallel against a snapshot of the tiles the objects can step on, and the events of all the movements
+     * are fired together once every object has moved.  When the paths of several objects touch the same tile, the object with the lowest
+     * ID moves and the others stay where they are.
+     *
+     * @param orders For each object to move, the tile to move it to.
+     *
+     * @return The movement executed for each object that moved.  Objects that cannot reach their target with their remaining speed or that
+     * were held back by another object are not included.
+     */
+    Map<? extends IGameObject, ? extends IMobilityModuleController.IMovement> moveAll(Map<? extends IGameObject, ? extends ITile> orders);
+
     Maybe<? extends IGameObject> getObject(int objectId);
 
     IGameController getGameController();
@@ -7,6 +7,7 @@ import com.lyndir.lhunath.opal.system.error.AlreadyCheckedException;
 import com.lyndir.omicron.api.util.Maybe;
 import com.lyndir.omicron.api.util.Maybool;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 
 /**
@@ -31,6 +32,15 @@ public interface ITile extends GameObservable {
      */
     ILevel getLevel();
 
+    /**
+     * @return The index of this tile within its level.
+     *
+     * @see ILevel#tileIndex(int, int)
+     */
+    default int getIndex() {
+        return getLevel().tileIndex( getPosition() );
+    }
+
     /**
      * @param resourceType The resource tile to query availability for.
      *
@@ -68,17 +78,27 @@ public interface ITile extends GameObservable {
         return neighbours.build();
     }
 
+    /**
+     * Visit all the tiles adjacent to this tile.  Unlike {@link #neighbours()}, this does not build a collection.
+     *
+     * @param action The operation to perform with each neighbouring tile.
+     */
+    default void forEachNeighbour(final Consumer<? super ITile> action) {
+        ILevel level = getLevel();
+        level.forEachNeighbour( getIndex(), neighbourIndex -> action.accept( level.tileAt( neighbourIndex ) ) );
+    }
+
     /**
      * @param distance The maximum distance from this tile of the neighbouring tiles to return.
      *
-     * @return Find all the tiles near this tile at a maximum given distance.
+     * @return Find all the tiles near this tile at a maximum given distance, including this tile.
+     *
+     * @see ILevel#forEachTileInRadius(int, int, java.util.function.IntConsumer)
      */
     default ImmutableCollection<? extends ITile> neighbours(final int distance) {
+        ILevel level = getLevel();
         ImmutableList.Builder<ITile> neighbours = ImmutableList.builder();
-        // FIXME: Not correct.
-        for (int dx = -distance; dx <= distance; ++dx)
-            for (int dy = Math.max( -distance, -dx - distance ); dy <= Math.min( distance, -dx + distance ); ++dy)
-                neighbours.add( getLevel().getTile( getPosition().translate( dx, dy ) ).get() );
+        level.forEachTileInRadius( getIndex(), distance, index -> neighbours.add( level.tileAt( index ) ) );
 
         return neighbours.build();
     }
@@ -0,0 +1,123 @@
+package com.lyndir.omicron.api.util;
+
+import java.util.Arrays;
+
+
+/**
+ * A binary min-heap of indexes, each with a priority.
+ *
+ * The heap is backed by primitive arrays sized for a range of indexes, so offering, updating and polling an index allocates nothing.
+ * Every index can be in the heap at most once; offering an index again changes its priority.
+ *
+ * @author lhunath, 2014-09-19
+ */
+class IndexHeap {
+
+    private int[]    heap       = new int[16];
+    // For each index, its position in the heap plus one, or zero if the index is not in the heap.
+    private int[]    positions  = new int[16];
+    private double[] priorities = new double[16];
+    private int      size;
+
+    /**
+     * Empty the heap and make room for the indexes from zero up to the given capacity (exclusive).
+     */
+    void reset(final int capacity) {
+        if (positions.length < capacity) {
+            positions = new int[capacity];
+            priorities = new double[capacity];
+        }
+        else
+            for (int h = 0; h < size; ++h)
+                positions[heap[h]] = 0;
+
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(final int index) {
+        return positions[index] != 0;
+    }
+
+    /**
+     * Add an index to the heap, or change its priority if it is already in the heap.
+     */
+    void offer(final int index, final double priority) {
+        int position = positions[index] - 1;
+        if (position < 0) {
+            if (size == heap.length)
+                heap = Arrays.copyOf( heap, size * 2 );
+
+            position = size++;
+            heap[position] = index;
+            positions[index] = position + 1;
+            priorities[index] = priority;
+            siftUp( position );
+        }
+        else if (priority < priorities[index]) {
+            priorities[index] = priority;
+            siftUp( position );
+        }
+        else {
+            priorities[index] = priority;
+            siftDown( position );
+        }
+    }
+
+    /**
+     * @return The index with the lowest priority, after removing it from the heap.
+     */
+    int poll() {
+        int index = heap[0];
+        positions[index] = 0;
+
+        if (--size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 1;
+            siftDown( 0 );
+        }
+
+        return index;
+    }
+
+    private void siftUp(int position) {
+        int index = heap[position];
+        double priority = priorities[index];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (priorities[heap[parent]] <= priority)
+                break;
+
+            heap[position] = heap[parent];
+            positions[heap[position]] = position + 1;
+            position = parent;
+        }
+
+        heap[position] = index;
+        positions[index] = position + 1;
+    }
+
+    private void siftDown(int position) {
+        int index = heap[position];
+        double priority = priorities[index];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && priorities[heap[child + 1]] < priorities[heap[child]])
+                ++child;
+            if (priority <= priorities[heap[child]])
+                break;
+
+            heap[position] = heap[child];
+            positions[heap[position]] = position + 1;
+            position = child;
+        }
+
+        heap[position] = index;
+        positions[index] = position + 1;
+    }
+}
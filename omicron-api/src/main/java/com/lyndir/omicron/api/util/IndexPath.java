@@ -0,0 +1,63 @@
+package com.lyndir.omicron.api.util;
+
+import java.util.Arrays;
+
+
+/**
+ * A path through a graph whose nodes are identified by index, such as the tiles of a level.
+ *
+ * @author lhunath, 2014-09-19
+ */
+public class IndexPath {
+
+    private final int[]  indexes;
+    private final double cost;
+
+    IndexPath(final int[] indexes, final double cost) {
+        this.indexes = indexes;
+        this.cost = cost;
+    }
+
+    /**
+     * @return The indexes of the nodes on the path, from the root to the target.
+     */
+    public int[] getIndexes() {
+        return indexes.clone();
+    }
+
+    /**
+     * @return The amount of nodes on the path, including the root and the target.
+     */
+    public int getLength() {
+        return indexes.length;
+    }
+
+    /**
+     * @param step The position of a node on the path, {@code 0} being the root.
+     *
+     * @return The index of the node at the given position.
+     */
+    public int getIndex(final int step) {
+        return indexes[step];
+    }
+
+    public int getRootIndex() {
+        return indexes[0];
+    }
+
+    public int getTargetIndex() {
+        return indexes[indexes.length - 1];
+    }
+
+    /**
+     * @return The total cost of all the steps along the path.
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "{IndexPath: %s, cost=%.2f}", Arrays.toString( indexes ), cost );
+    }
+}
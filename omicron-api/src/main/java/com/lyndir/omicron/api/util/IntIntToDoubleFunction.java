@@ -0,0 +1,12 @@
+package com.lyndir.omicron.api.util;
+
+/**
+ * A function of two {@code int} arguments that produces a {@code double}, such as the cost of a step between two tiles by their index.
+ *
+ * @author lhunath, 2014-09-19
+ */
+@FunctionalInterface
+public interface IntIntToDoubleFunction {
+
+    double applyAsDouble(int left, int right);
+}
@@ -1,12 +1,20 @@
 package com.lyndir.omicron.api.util;
 
 import com.google.common.collect.ImmutableSet;
+import com.lyndir.lhunath.opal.math.Side;
 import com.lyndir.lhunath.opal.system.logging.Logger;
 import com.lyndir.lhunath.opal.system.util.NNFunctionNN;
 import com.lyndir.lhunath.opal.system.util.PredicateNN;
+import com.lyndir.omicron.api.ILevel;
+import com.lyndir.omicron.api.ITile;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.ToDoubleBiFunction;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 
 public abstract class PathUtils {
@@ -14,8 +22,10 @@ public abstract class PathUtils {
     @SuppressWarnings("UnusedDeclaration")
     private static final Logger logger = Logger.get( PathUtils.class );
 
+    private static final Side[] SIDES = Side.values();
+
     /**
-     * A breath-first search from root.
+     * A lowest-cost-first (Dijkstra) search from root.
      *
      * @param root               The object to start the search from.
      * @param foundFunction      The function that checks a neighbouring object to see if it's the object we're looking for.
@@ -30,51 +40,338 @@ public abstract class PathUtils {
                                              final NNFunctionNN<Step<E>, Double> costFunction, final double maxCost,
                                              final NNFunctionNN<E, Stream<? extends E>> neighboursFunction) {
 
-        // Test the root.
-        if (foundFunction.apply( root )) {
-            logger.trc( "found root: %s", root );
-            return Optional.of( new Path<>( root, 0 ) );
-        }
+        return find( root, foundFunction, costFunction, maxCost,
+                     (NeighbourVisitor<E>) (node, action) -> neighboursFunction.apply( node ).forEach( action ) );
+    }
 
-        // Initialize breath-first.
-        Set<E> testedNodes = new HashSet<>();
-        Deque<Path<E>> testPaths = new LinkedList<>();
-        testPaths.addLast( new Path<>( root, 0 ) );
-        testedNodes.add( root );
+    /**
+     * A lowest-cost-first (Dijkstra) search from root.
+     *
+     * @param root             The object to start the search from.
+     * @param foundFunction    The function that checks a neighbouring object to see if it's the object we're looking for.
+     * @param costFunction     The function that determines the cost for navigating from a given object to a given neighbouring object.
+     * @param maxCost          The maximum cost of a path.  Any paths that cost more than this amount are abandoned.
+     * @param neighbourVisitor The function that visits an object's direct neighbours.
+     * @param <E>              The type of objects we're searching.
+     *
+     * @return An optional path to the nearest found object by cost, or empty if no path was found (no neighbours left or all paths too
+     * expensive).
+     */
+    public static <E, R extends E> Optional<Path<E>> find(final R root, final PredicateNN<E> foundFunction,
+                                                          final NNFunctionNN<Step<E>, Double> costFunction, final double maxCost,
+                                                          final NeighbourVisitor<E> neighbourVisitor) {
+
+        return find( root, foundFunction, (ToDoubleBiFunction<E, E>) (from, to) -> costFunction.apply( new Step<>( from, to ) ), maxCost,
+                     neighbourVisitor );
+    }
 
-        // Search breath-first.
+    /**
+     * A lowest-cost-first (Dijkstra) search from root.
+     *
+     * @param root             The object to start the search from.
+     * @param foundFunction    The function that checks a neighbouring object to see if it's the object we're looking for.
+     * @param costFunction     The function that determines the cost for navigating from a given object to a given neighbouring object.
+     * @param maxCost          The maximum cost of a path.  Any paths that cost more than this amount are abandoned.
+     * @param neighbourVisitor The function that visits an object's direct neighbours.
+     * @param <E>              The type of objects we're searching.
+     *
+     * @return An optional path to the nearest found object by cost, or empty if no path was found (no neighbours left or all paths too
+     * expensive).
+     */
+    public static <E, R extends E> Optional<Path<E>> find(final R root, final PredicateNN<E> foundFunction,
+                                                          final ToDoubleBiFunction<? super E, ? super E> costFunction, final double maxCost,
+                                                          final NeighbourVisitor<E> neighbourVisitor) {
+
+        // Initialize lowest-cost-first.
+        Set<E> settledNodes = new HashSet<>();
+        Map<E, Double> reachedCosts = new HashMap<>();
+        PriorityQueue<Path<E>> testPaths = new PriorityQueue<>( Comparator.comparingDouble( Path::getCost ) );
+        List<E> neighbours = new ArrayList<>();
+        testPaths.add( new Path<>( root, 0 ) );
+        reachedCosts.put( root, 0d );
+
+        // Search lowest-cost-first: a node's path is the cheapest once it is taken off the queue.
         while (!testPaths.isEmpty()) {
-            Path<E> testPath = testPaths.removeFirst();
+            Path<E> testPath = testPaths.poll();
+            if (!settledNodes.add( testPath.getTarget() ))
+                // A cheaper path to this node was already tested.
+                continue;
+
+            // Did we find the target?
+            if (foundFunction.apply( testPath.getTarget() ))
+                return Optional.of( testPath );
 
             // Check each neighbour.
-            Iterator<? extends E> neighboursIt = neighboursFunction.apply( testPath.getTarget() ).iterator();
-            while (neighboursIt.hasNext()) {
-                E neighbour = neighboursIt.next();
-                if (!testedNodes.add( neighbour ))
+            neighbours.clear();
+            neighbourVisitor.forEachNeighbour( testPath.getTarget(), neighbours::add );
+            for (final E neighbour : neighbours) {
+                if (settledNodes.contains( neighbour ))
                     // Neighbour was already tested.
                     continue;
 
-                double neighbourCost = testPath.getCost() + costFunction.apply( new Step<>( testPath.getTarget(), neighbour ) );
-                if (neighbourCost > maxCost) {
+                double neighbourCost = testPath.getCost() + costFunction.applyAsDouble( testPath.getTarget(), neighbour );
+                if (neighbourCost > maxCost)
                     // Stepping to neighbour from here would exceed maximum cost.
-                    logger.trc( "neighbour exceeds maximum cost (%.2f > %.2f): %s", neighbourCost, maxCost, neighbour );
                     continue;
-                }
+                Double reachedCost = reachedCosts.get( neighbour );
+                if (reachedCost != null && reachedCost <= neighbourCost)
+                    // Neighbour can already be reached as cheaply.
+                    continue;
+
+                // Add the neighbour for testing it and its neighbours later.
+                reachedCosts.put( neighbour, neighbourCost );
+                testPaths.add( new Path<>( testPath, neighbour, neighbourCost ) );
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * A shortest path search (A*) between two tiles of a level, by tile index.
+     *
+     * This is an adapter for {@link #findShortestIndexes(ILevel, int, int, IntIntToDoubleFunction, double, double)} that links the tiles
+     * of the path up into a {@link Path}.
+     *
+     * @return An optional path to the target, or empty if no path was found (no neighbours left or all paths too expensive).
+     */
+    public static Optional<Path<ITile>> findShortest(final ILevel level, final int rootIndex, final int targetIndex,
+                                                     final IntIntToDoubleFunction costFunction, final double minStepCost,
+                                                     final double maxCost) {
+
+        Optional<IndexPath> indexPath = findShortestIndexes( level, rootIndex, targetIndex, costFunction, minStepCost, maxCost );
+        if (!indexPath.isPresent())
+            return Optional.empty();
+
+        return Optional.of( toPath( indexPath.get(), level::tileAt, costFunction ) );
+    }
 
-                // Did we find the target?
-                Path<E> neighbourPath = new Path<>( testPath, neighbour, neighbourCost );
-                if (foundFunction.apply( neighbour )) {
-                    logger.trc( "found neighbour at cost %.2f: %s", neighbourCost, neighbour );
-                    return Optional.of( neighbourPath );
+    /**
+     * A shortest path search (A*) between two tiles of a level, by tile index.
+     *
+     * The search runs on this thread's reusable {@link SearchContext}: its open set is a primitive heap of tile indexes and its per-tile
+     * state lives in arrays that are shared by all searches on the thread.  The remaining cost from a tile to the target is estimated by
+     * their hex distance times the lowest step cost, which never overestimates the cost, so the path found is the cheapest.  Nothing is
+     * allocated while searching, only the indexes of the path that is found.
+     *
+     * @param level        The level to search the tiles of.
+     * @param rootIndex    The index of the tile to start the search from.
+     * @param targetIndex  The index of the tile to find a path to.
+     * @param costFunction The function that determines the cost for stepping from a tile to a neighbouring tile, by their indexes.
+     * @param minStepCost  The lowest cost of any step.  Zero turns the search into a plain Dijkstra search.
+     * @param maxCost      The maximum cost of a path.  Any paths that cost more than this amount are abandoned.
+     *
+     * @return The indexes of the tiles on the cheapest path to the target and its total cost, or empty if no path was found (no neighbours
+     * left or all paths too expensive).
+     */
+    public static Optional<IndexPath> findShortestIndexes(final ILevel level, final int rootIndex, final int targetIndex,
+                                                          final IntIntToDoubleFunction costFunction, final double minStepCost,
+                                                          final double maxCost) {
+
+        int width = level.getSize().getWidth();
+        int targetX = targetIndex % width, targetY = targetIndex / width;
+        SearchContext context = SearchContext.acquire( width * level.getSize().getHeight() );
+        try {
+            context.reach( rootIndex, 0, -1 );
+            context.open.offer( rootIndex, //
+                                minStepCost * RadiusOffsets.distance( targetX - rootIndex % width, targetY - rootIndex / width ) );
+
+            while (!context.open.isEmpty()) {
+                int index = context.open.poll();
+                context.settle( index );
+                if (index == targetIndex)
+                    return Optional.of( toIndexPath( context, index ) );
+
+                int x = index % width, y = index / width;
+                for (final Side side : SIDES) {
+                    int neighbour = level.neighbourIndex( index, x, y, side );
+                    if (neighbour < 0 || context.isSettled( neighbour ))
+                        continue;
+
+                    double neighbourCost = context.costs[index] + costFunction.applyAsDouble( index, neighbour );
+                    if (neighbourCost > maxCost || context.isReached( neighbour ) && context.costs[neighbour] <= neighbourCost)
+                        // Stepping to neighbour from here would exceed maximum cost or is no cheaper than another way to get there.
+                        continue;
+
+                    context.reach( neighbour, neighbourCost, index );
+                    context.open.offer( neighbour, neighbourCost + minStepCost * RadiusOffsets.distance(
+                            targetX - x - side.getDelta().getX(), targetY - y - side.getDelta().getY() ) );
                 }
-                logger.trc( "intermediate neighbour at cost %.2f: %s", neighbourCost, neighbour );
+            }
+
+            return Optional.empty();
+        }
+        finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Link up the nodes of a path through a graph whose nodes are identified by index into a {@link Path}.
+     *
+     * @param indexPath    The path through the graph.
+     * @param nodeFunction The function that determines the object of a node, by its index.
+     * @param costFunction The function that determines the cost for stepping from a node to the next node of the path, by their indexes.
+     * @param <E>          The type of the objects of the nodes.
+     *
+     * @return The path along the objects of the nodes, ending at the target's.
+     */
+    public static <E> Path<E> toPath(final IndexPath indexPath, final IntFunction<? extends E> nodeFunction,
+                                      final IntIntToDoubleFunction costFunction) {
+        double cost = 0;
+        Path<E> path = new Path<>( nodeFunction.apply( indexPath.getRootIndex() ), cost );
+        for (int step = 1; step < indexPath.getLength(); ++step) {
+            cost += costFunction.applyAsDouble( indexPath.getIndex( step - 1 ), indexPath.getIndex( step ) );
+            path = new Path<>( path, nodeFunction.apply( indexPath.getIndex( step ) ), cost );
+        }
+
+        return path;
+    }
+
+    /**
+     * Link up a walk over the tiles of a level into a path, where every step costs the same.
+     *
+     * @param level    The level of the tiles.
+     * @param indexes  The indexes of the tiles of the walk, from the root to the target.
+     * @param stepCost The cost of each step of the walk.
+     *
+     * @return The path along the tiles, ending at the last one.
+     */
+    public static Path<ITile> toPath(final ILevel level, final int[] indexes, final double stepCost) {
+        Path<ITile> path = new Path<>( level.tileAt( indexes[0] ), 0 );
+        for (int i = 1; i < indexes.length; ++i)
+            path = new Path<>( path, level.tileAt( indexes[i] ), i * stepCost );
+
+        return path;
+    }
 
-                // Neighbour is not the target, add it for testing its neighbours later.
-                testPaths.add( neighbourPath );
+    /**
+     * A shortest path search (A*) through a graph whose nodes are identified by index.
+     *
+     * Like {@link #findShortest(ILevel, int, int, IntIntToDoubleFunction, double, double)}, the search runs on this thread's reusable
+     * {@link SearchContext}, but the edges of the graph are not bound to the sides of tiles: they are visited by the given function.
+     *
+     * @param nodeCount   The amount of nodes in the graph.  Node indexes range from zero up to this amount (exclusive).
+     * @param rootIndex   The index of the node to start the search from.
+     * @param targetIndex The index of the node to find a path to.
+     * @param edgeVisitor The function that visits the edges from a node to its neighbours, with the cost of each.
+     * @param heuristic   The function that estimates the remaining cost from a node to the target.  To find the cheapest path, it must
+     *                    never overestimate the cost.
+     * @param maxCost     The maximum cost of a path.  Any paths that cost more than this amount are abandoned.
+     *
+     * @return An optional path to the target, or empty if no path was found (no neighbours left or all paths too expensive).
+     */
+    public static Optional<IndexPath> findShortest(final int nodeCount, final int rootIndex, final int targetIndex,
+                                                   final EdgeVisitor edgeVisitor, final IntToDoubleFunction heuristic,
+                                                   final double maxCost) {
+
+        SearchContext context = SearchContext.acquire( nodeCount );
+        try {
+            context.reach( rootIndex, 0, -1 );
+            context.open.offer( rootIndex, heuristic.applyAsDouble( rootIndex ) );
+
+            while (!context.open.isEmpty()) {
+                int index = context.open.poll();
+                context.settle( index );
+                if (index == targetIndex)
+                    return Optional.of( toIndexPath( context, index ) );
+
+                double cost = context.costs[index];
+                edgeVisitor.forEachEdge( index, (neighbour, stepCost) -> {
+                    if (context.isSettled( neighbour ))
+                        return;
+
+                    double neighbourCost = cost + stepCost;
+                    if (neighbourCost > maxCost || context.isReached( neighbour ) && context.costs[neighbour] <= neighbourCost)
+                        // Stepping to neighbour from here would exceed maximum cost or is no cheaper than another way to get there.
+                        return;
+
+                    context.reach( neighbour, neighbourCost, index );
+                    context.open.offer( neighbour, neighbourCost + heuristic.applyAsDouble( neighbour ) );
+                } );
             }
+
+            return Optional.empty();
         }
+        finally {
+            context.release();
+        }
+    }
 
-        return Optional.empty();
+    private static IndexPath toIndexPath(final SearchContext context, final int index) {
+        int length = 0;
+        for (int step = index; step >= 0; step = context.parents[step])
+            ++length;
+
+        int[] indexes = new int[length];
+        for (int step = index; step >= 0; step = context.parents[step])
+            indexes[--length] = step;
+
+        return new IndexPath( indexes, context.costs[index] );
+    }
+
+    /**
+     * A lowest-cost-first (Dijkstra) flood fill of a level from a tile, by tile index.
+     *
+     * Like {@link #findShortest(ILevel, int, int, IntIntToDoubleFunction, double, double)}, the search runs on this thread's reusable
+     * {@link SearchContext}.  It has no target: it settles every tile that can be reached within the maximum cost.
+     *
+     * @param level        The level to search the tiles of.
+     * @param rootIndex    The index of the tile to start the search from.
+     * @param costFunction The function that determines the cost for stepping from a tile to a neighbouring tile, by their indexes.
+     * @param maxCost      The maximum cost of a path.  Any tiles that cost more than this amount to reach are not included.
+     *
+     * @return The reachable tiles, with the cost of and the way back along the cheapest path to each.
+     */
+    public static Reachability reachable(final ILevel level, final int rootIndex, final IntIntToDoubleFunction costFunction,
+                                         final double maxCost) {
+
+        int width = level.getSize().getWidth();
+        SearchContext context = SearchContext.acquire( width * level.getSize().getHeight() );
+        try {
+            int[] settled = new int[16];
+            int count = 0;
+            context.reach( rootIndex, 0, -1 );
+            context.open.offer( rootIndex, 0 );
+
+            while (!context.open.isEmpty()) {
+                int index = context.open.poll();
+                context.settle( index );
+                if (count == settled.length)
+                    settled = Arrays.copyOf( settled, count * 2 );
+                settled[count++] = index;
+
+                int x = index % width, y = index / width;
+                for (final Side side : SIDES) {
+                    int neighbour = level.neighbourIndex( index, x, y, side );
+                    if (neighbour < 0 || context.isSettled( neighbour ))
+                        continue;
+
+                    double neighbourCost = context.costs[index] + costFunction.applyAsDouble( index, neighbour );
+                    if (neighbourCost > maxCost || context.isReached( neighbour ) && context.costs[neighbour] <= neighbourCost)
+                        // Stepping to neighbour from here would exceed maximum cost or is no cheaper than another way to get there.
+                        continue;
+
+                    context.reach( neighbour, neighbourCost, index );
+                    context.open.offer( neighbour, neighbourCost );
+                }
+            }
+
+            // Copy the settled tiles out of the context, ordered by index.
+            int[] indexes = Arrays.copyOf( settled, count );
+            Arrays.sort( indexes );
+            double[] costs = new double[count];
+            int[] parents = new int[count];
+            for (int i = 0; i < count; ++i) {
+                costs[i] = context.costs[indexes[i]];
+                parents[i] = context.parents[indexes[i]];
+            }
+
+            return new Reachability( level, rootIndex, maxCost, indexes, costs, parents );
+        }
+        finally {
+            context.release();
+        }
     }
 
     /**
@@ -91,61 +388,112 @@ public abstract class PathUtils {
      */
     public static <E> Collection<E> neighbours(final E root, final int radius, final NNFunctionNN<E, Iterable<? extends E>> neighboursFunction) {
 
+        return neighbours( root, radius, (NeighbourVisitor<E>) (node, action) -> neighboursFunction.apply( node ).forEach( action ) );
+    }
+
+    /**
+     * A variation of the breath-first search from root which just enumerates all the objects around root.
+     *
+     * @param root             The object to start the search from.
+     * @param radius           The maximum distance of an object.  Any objects farther removed from the root than the radius are abandoned
+     *                         and not included.
+     * @param neighbourVisitor The function that visits an object's direct neighbours.
+     * @param <E>              The type of objects we're searching.
+     *
+     * @return A collection of the object's neighbours.
+     */
+    public static <E> Collection<E> neighbours(final E root, final int radius, final NeighbourVisitor<E> neighbourVisitor) {
+
         if (radius == 0)
             return ImmutableSet.of( root );
 
         // Initialize breath-first.
         Set<E> neighbours = new HashSet<>();
-        Deque<Path<E>> testPaths = new LinkedList<>();
-        testPaths.addLast( new Path<>( root, 0 ) );
+        Deque<E> testNodes = new ArrayDeque<>();
+        Deque<E> nextNodes = new ArrayDeque<>();
+        testNodes.addLast( root );
         neighbours.add( root );
 
-        // Search breath-first.
-        while (!testPaths.isEmpty()) {
-            Path<E> testPath = testPaths.removeFirst();
+        // Search breath-first, one ring of neighbours at a time.
+        for (int distance = 1; distance <= radius && !testNodes.isEmpty(); ++distance) {
+            while (!testNodes.isEmpty())
+                neighbourVisitor.forEachNeighbour( testNodes.removeFirst(), neighbour -> {
+                    if (neighbours.add( neighbour ))
+                        // Add it for testing its neighbours later.
+                        nextNodes.addLast( neighbour );
+                } );
+
+            testNodes.addAll( nextNodes );
+            nextNodes.clear();
+        }
 
-            // Check each neighbour.
-            for (final E neighbour : neighboursFunction.apply( testPath.getTarget() )) {
-                if (!neighbours.add( neighbour ))
-                    // Neighbour was already tested.
-                    continue;
+        return neighbours;
+    }
 
-                double neighbourDistance = testPath.getCost() + 1;
-                if (neighbourDistance > radius) {
-                    // Stepping to neighbour from here would exceed maximum cost.
-                    logger.trc( "neighbour exceeds radius (%.2f > %.2f): %s", neighbourDistance, radius, neighbour );
-                    continue;
-                }
+    /**
+     * Visits the edges from a node of a graph whose nodes are identified by index.
+     */
+    @FunctionalInterface
+    public interface EdgeVisitor {
+
+        /**
+         * @param index  The index of the node whose edges to visit.
+         * @param action The operation to perform with each edge of the node.
+         */
+        void forEachEdge(int index, EdgeConsumer action);
+    }
 
-                // Add it for testing its neighbours later.
-                logger.trc( "neighbour at distance %.2f: %s", neighbourDistance, neighbour );
-                testPaths.add( new Path<>( testPath, neighbour, neighbourDistance ) );
-            }
-        }
 
-        return neighbours;
+    /**
+     * An operation on an edge from a node of a graph whose nodes are identified by index.
+     */
+    @FunctionalInterface
+    public interface EdgeConsumer {
+
+        /**
+         * @param neighbourIndex The index of the node at the other end of the edge.
+         * @param cost           The cost of stepping along the edge.
+         */
+        void accept(int neighbourIndex, double cost);
+    }
+
+
+    /**
+     * Visits the direct neighbours of an object, without requiring a collection of them to be built.
+     *
+     * @param <E> The type of objects we're searching.
+     */
+    @FunctionalInterface
+    public interface NeighbourVisitor<E> {
+
+        /**
+         * @param node   The object whose direct neighbours to visit.
+         * @param action The operation to perform with each of the object's direct neighbours.
+         */
+        void forEachNeighbour(E node, Consumer<? super E> action);
     }
 
     public static class Path<E> {
 
-        private final Optional<Path<E>> parent;
-        private final E                 target;
-        private final double            cost;
+        @Nullable
+        private final Path<E> parent;
+        private final E       target;
+        private final double  cost;
 
         Path(final E target, final double cost) {
-            parent = Optional.empty();
+            parent = null;
             this.target = target;
             this.cost = cost;
         }
 
         Path(@Nonnull final Path<E> parent, final E target, final double cost) {
-            this.parent = Optional.of( parent );
+            this.parent = parent;
             this.target = target;
             this.cost = cost;
         }
 
         public Optional<Path<E>> getParent() {
-            return parent;
+            return Optional.ofNullable( parent );
         }
 
         public double getCost() {
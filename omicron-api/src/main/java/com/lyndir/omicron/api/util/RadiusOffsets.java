@@ -0,0 +1,110 @@
+package com.lyndir.omicron.api.util;
+
+import com.google.common.base.Preconditions;
+import java.util.function.IntConsumer;
+
+
+/**
+ * The relative positions of the tiles around a tile, ordered by their distance from it.
+ *
+ * Tile positions are axial hex coordinates: the distance between two tiles that are {@code (dx, dy)} apart is the largest of
+ * {@code |dx|}, {@code |dy|} and {@code |dx + dy|}.  The offsets at distance {@code r} form a ring of {@code 6r} tiles, all rings up to
+ * distance {@code r} form a disc of {@code 3r(r + 1) + 1} tiles.  The table is shared and only grows when a larger radius is requested.
+ *
+ * @author lhunath, 2014-09-08
+ */
+public final class RadiusOffsets {
+
+    private static volatile RadiusOffsets shared = new RadiusOffsets( 8 );
+
+    private final int   maxRadius;
+    private final int[] dx;
+    private final int[] dy;
+    private final int[] ringStarts;
+
+    private RadiusOffsets(final int maxRadius) {
+        this.maxRadius = maxRadius;
+        dx = new int[discSize( maxRadius )];
+        dy = new int[dx.length];
+        ringStarts = new int[maxRadius + 2];
+
+        int offset = 0;
+        for (int radius = 0; radius <= maxRadius; ++radius) {
+            ringStarts[radius] = offset;
+            for (int x = -radius; x <= radius; ++x)
+                for (int y = Math.max( -radius, -x - radius ); y <= Math.min( radius, -x + radius ); ++y)
+                    if (distance( x, y ) == radius) {
+                        dx[offset] = x;
+                        dy[offset] = y;
+                        ++offset;
+                    }
+        }
+        ringStarts[maxRadius + 1] = offset;
+    }
+
+    /**
+     * @param radius The largest distance that will be queried.
+     *
+     * @return A table that holds the offsets of all the tiles up to at least the given distance.
+     */
+    public static RadiusOffsets upTo(final int radius) {
+        Preconditions.checkArgument( radius >= 0, "Radius cannot be negative: %s", radius );
+
+        RadiusOffsets offsets = shared;
+        if (offsets.maxRadius < radius)
+            synchronized (RadiusOffsets.class) {
+                offsets = shared;
+                if (offsets.maxRadius < radius)
+                    shared = offsets = new RadiusOffsets( Math.max( radius, offsets.maxRadius * 2 ) );
+            }
+
+        return offsets;
+    }
+
+    /**
+     * @return The distance between two tiles that are the given amount of tiles apart.
+     */
+    public static int distance(final int dx, final int dy) {
+        return Math.max( Math.max( Math.abs( dx ), Math.abs( dy ) ), Math.abs( dx + dy ) );
+    }
+
+    /**
+     * @return The amount of tiles at most the given distance away from a tile, including the tile itself.
+     */
+    public static int discSize(final int radius) {
+        return 3 * radius * (radius + 1) + 1;
+    }
+
+    /**
+     * Visit the index of each tile in a level whose distance to a center tile is within the given bounds.  Tiles that fall outside of the
+     * level are skipped.  Tiles are visited ring by ring, starting with those nearest to the center.
+     *
+     * @param width     The width of the level.
+     * @param height    The height of the level.
+     * @param x         The horizontal coordinate of the center tile.
+     * @param y         The vertical coordinate of the center tile.
+     * @param minRadius The smallest distance from the center tile of the tiles to visit.
+     * @param maxRadius The largest distance from the center tile of the tiles to visit.
+     * @param action    The operation to perform with the index of each tile, as determined by {@code y * width + x}.
+     */
+    public void forEach(final int width, final int height, final int x, final int y, final int minRadius, final int maxRadius,
+                        final IntConsumer action) {
+        Preconditions.checkArgument( minRadius >= 0 && minRadius <= maxRadius && maxRadius <= this.maxRadius,
+                                     "Invalid radius range: [%s, %s] (table holds up to %s)", minRadius, maxRadius, this.maxRadius );
+
+        int from = ringStarts[minRadius], to = ringStarts[maxRadius + 1];
+        int center = y * width + x;
+        if (x >= maxRadius && y >= maxRadius && x + maxRadius < width && y + maxRadius < height) {
+            // The center is far enough from the edges for all offsets to fall inside the level.
+            for (int offset = from; offset < to; ++offset)
+                action.accept( center + dy[offset] * width + dx[offset] );
+            return;
+        }
+
+        for (int offset = from; offset < to; ++offset) {
+            int tileX = x + dx[offset], tileY = y + dy[offset];
+            if (tileX >= 0 && tileY >= 0 && tileX < width && tileY < height)
+                action.accept( center + dy[offset] * width + dx[offset] );
+        }
+    }
+}
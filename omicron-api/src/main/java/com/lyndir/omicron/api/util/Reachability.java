@@ -0,0 +1,128 @@
+package com.lyndir.omicron.api.util;
+
+import com.lyndir.omicron.api.ILevel;
+import com.lyndir.omicron.api.ITile;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+
+/**
+ * The tiles of a level that can be reached from a root tile within a maximum cost, with the cost of the cheapest path to each.
+ *
+ * The reached tiles are kept in three parallel arrays ordered by tile index: the index of each tile, the cost of reaching it and the
+ * index of the tile it is reached from.  Looking up a tile is a binary search, walking back the parents of a tile yields its path.
+ *
+ * @author lhunath, 2014-09-19
+ */
+public class Reachability {
+
+    private final ILevel   level;
+    private final int      rootIndex;
+    private final double   maxCost;
+    private final int[]    indexes;
+    private final double[] costs;
+    private final int[]    parents;
+
+    Reachability(final ILevel level, final int rootIndex, final double maxCost, final int[] indexes, final double[] costs,
+                 final int[] parents) {
+        this.level = level;
+        this.rootIndex = rootIndex;
+        this.maxCost = maxCost;
+        this.indexes = indexes;
+        this.costs = costs;
+        this.parents = parents;
+    }
+
+    public ILevel getLevel() {
+        return level;
+    }
+
+    /**
+     * @return The index of the tile that all paths start from.
+     */
+    public int getRootIndex() {
+        return rootIndex;
+    }
+
+    /**
+     * @return The maximum cost of the paths to the reachable tiles.
+     */
+    public double getMaxCost() {
+        return maxCost;
+    }
+
+    /**
+     * @return The amount of reachable tiles, including the root tile.
+     */
+    public int size() {
+        return indexes.length;
+    }
+
+    public boolean isReachable(final int index) {
+        return Arrays.binarySearch( indexes, index ) >= 0;
+    }
+
+    /**
+     * @return The cost of the cheapest path to the tile with the given index, or {@link Double#MAX_VALUE} if it cannot be reached.
+     */
+    public double getCost(final int index) {
+        int position = Arrays.binarySearch( indexes, index );
+        if (position < 0)
+            return Double.MAX_VALUE;
+
+        return costs[position];
+    }
+
+    /**
+     * @return The index of the tile before the tile with the given index on the cheapest path to it, or {@code -1} if it is the root tile or
+     * cannot be reached.
+     */
+    public int getParent(final int index) {
+        int position = Arrays.binarySearch( indexes, index );
+        if (position < 0)
+            return -1;
+
+        return parents[position];
+    }
+
+    /**
+     * @return The indexes of all the reachable tiles, in ascending order.
+     */
+    public IntStream tileIndexes() {
+        return Arrays.stream( indexes );
+    }
+
+    /**
+     * @return All the reachable tiles, in the order of their index.
+     */
+    public Stream<? extends ITile> tiles() {
+        return tileIndexes().mapToObj( level::tileAt );
+    }
+
+    /**
+     * @return The cheapest path from the root tile to the tile with the given index, or empty if it cannot be reached.
+     */
+    public Optional<PathUtils.Path<ITile>> pathTo(final int index) {
+        int position = Arrays.binarySearch( indexes, index );
+        if (position < 0)
+            return Optional.empty();
+
+        // Collect the tiles from the target back to the root.
+        int[] pathPositions = new int[16];
+        int length = 0;
+        for (int step = position; step >= 0; step = parents[step] < 0? -1: Arrays.binarySearch( indexes, parents[step] )) {
+            if (length == pathPositions.length)
+                pathPositions = Arrays.copyOf( pathPositions, length * 2 );
+            pathPositions[length++] = step;
+        }
+
+        // Link them up from the root to the target.
+        PathUtils.Path<ITile> path = new PathUtils.Path<>( level.tileAt( indexes[pathPositions[length - 1]] ),
+                                                           costs[pathPositions[length - 1]] );
+        for (int i = length - 2; i >= 0; --i)
+            path = new PathUtils.Path<>( path, level.tileAt( indexes[pathPositions[i]] ), costs[pathPositions[i]] );
+
+        return Optional.of( path );
+    }
+}
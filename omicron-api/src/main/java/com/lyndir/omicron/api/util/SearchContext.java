@@ -0,0 +1,86 @@
+package com.lyndir.omicron.api.util;
+
+import java.util.Arrays;
+
+
+/**
+ * The scratch state of a search over the tiles of a level, by tile index.
+ *
+ * Each thread keeps one context and reuses it for every search it runs, so a search does not allocate its open set or its per-tile
+ * costs.  Instead of clearing the per-tile state between searches, every search marks the tiles it reaches with a new generation.
+ *
+ * @author lhunath, 2014-09-19
+ */
+class SearchContext {
+
+    private static final ThreadLocal<SearchContext> contexts = ThreadLocal.withInitial( SearchContext::new );
+
+    final IndexHeap open    = new IndexHeap();
+    double[]        costs   = new double[0];
+    int[]           parents = new int[0];
+
+    // A tile is reached in the current search if its mark is the generation, settled if its mark is the generation plus one.
+    private int[]   marks = new int[0];
+    private int     generation;
+    private boolean inUse;
+
+    /**
+     * Get this thread's context, ready for a search over the given amount of tiles.  It must be {@link #release() released} when the
+     * search is done.  A search that runs while another is in progress on the same thread gets a context of its own.
+     */
+    static SearchContext acquire(final int capacity) {
+        SearchContext context = contexts.get();
+        if (context.inUse)
+            context = new SearchContext();
+
+        context.reset( capacity );
+        context.inUse = true;
+        return context;
+    }
+
+    void release() {
+        inUse = false;
+    }
+
+    private void reset(final int capacity) {
+        if (marks.length < capacity) {
+            marks = new int[capacity];
+            costs = new double[capacity];
+            parents = new int[capacity];
+            generation = 0;
+        }
+        if (generation >= Integer.MAX_VALUE - 2) {
+            Arrays.fill( marks, 0 );
+            generation = 0;
+        }
+
+        generation += 2;
+        open.reset( capacity );
+    }
+
+    boolean isReached(final int index) {
+        return marks[index] >= generation;
+    }
+
+    boolean isSettled(final int index) {
+        return marks[index] == generation + 1;
+    }
+
+    /**
+     * Record the cheapest known way of reaching a tile so far.
+     *
+     * @param parent The index of the tile the tile is reached from, or -1 if it is the root of the search.
+     */
+    void reach(final int index, final double cost, final int parent) {
+        marks[index] = generation;
+        costs[index] = cost;
+        parents[index] = parent;
+    }
+
+    /**
+     * Record that the cheapest way of reaching a tile is known.
+     */
+    void settle(final int index) {
+        marks[index] = generation + 1;
+    }
+}
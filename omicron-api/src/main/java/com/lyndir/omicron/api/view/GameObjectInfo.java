@@ -0,0 +1,68 @@
+package com.lyndir.omicron.api.view;
+
+import com.google.common.collect.ImmutableList;
+import com.lyndir.omicron.api.*;
+import java.util.Optional;
+import javax.annotation.Nullable;
+
+
+/**
+ * A snapshot of a game object, taken at a time the current player could observe it.
+ *
+ * The snapshot was authorized once, when it was taken.  Reading it involves no further checks, which makes it the cheap way to render or
+ * serialize many objects at once.  It does not change when the object does.
+ *
+ * @author lhunath, 2014-09-18
+ */
+public class GameObjectInfo {
+
+    private final IGameObject               gameObject;
+    private final IUnitType                 type;
+    @Nullable
+    private final IPlayer                   owner;
+    private final ITile                     location;
+    private final ImmutableList<ModuleInfo> modules;
+
+    public GameObjectInfo(final IGameObject gameObject, final IUnitType type, @Nullable final IPlayer owner, final ITile location,
+                          final ImmutableList<ModuleInfo> modules) {
+
+        this.gameObject = gameObject;
+        this.type = type;
+        this.owner = owner;
+        this.location = location;
+        this.modules = modules;
+    }
+
+    public IGameObject getGameObject() {
+
+        return gameObject;
+    }
+
+    public IUnitType getType() {
+
+        return type;
+    }
+
+    public Optional<IPlayer> getOwner() {
+
+        return Optional.ofNullable( owner );
+    }
+
+    public ITile getLocation() {
+
+        return location;
+    }
+
+    public ImmutableList<ModuleInfo> getModules() {
+
+        return modules;
+    }
+
+    /**
+     * @return The snapshot of the object's first module of the given kind, if it has one.
+     */
+    public <I extends ModuleInfo> Optional<I> getModule(final Class<I> infoType) {
+
+        return modules.stream().filter( infoType::isInstance ).map( infoType::cast ).findFirst();
+    }
+}
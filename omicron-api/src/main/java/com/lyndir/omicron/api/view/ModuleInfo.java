@@ -0,0 +1,283 @@
+package com.lyndir.omicron.api.view;
+
+import com.google.common.collect.ImmutableSet;
+import com.lyndir.omicron.api.*;
+
+
+/**
+ * A snapshot of the state of a module, taken along with its {@link GameObjectInfo}.
+ *
+ * @author lhunath, 2014-09-18
+ */
+public abstract class ModuleInfo {
+
+    private final PublicModuleType<?> type;
+
+    protected ModuleInfo(final PublicModuleType<?> type) {
+
+        this.type = type;
+    }
+
+    public PublicModuleType<?> getType() {
+
+        return type;
+    }
+
+    /**
+     * @see IBaseModule
+     */
+    public static class Base extends ModuleInfo {
+
+        private final int                     maxHealth;
+        private final int                     armor;
+        private final int                     viewRange;
+        private final ImmutableSet<LevelType> supportedLayers;
+        private final int                     damage;
+
+        public Base(final int maxHealth, final int armor, final int viewRange, final ImmutableSet<LevelType> supportedLayers,
+                    final int damage) {
+            super( PublicModuleType.BASE );
+
+            this.maxHealth = maxHealth;
+            this.armor = armor;
+            this.viewRange = viewRange;
+            this.supportedLayers = supportedLayers;
+            this.damage = damage;
+        }
+
+        public int getMaxHealth() {
+
+            return maxHealth;
+        }
+
+        public int getArmor() {
+
+            return armor;
+        }
+
+        public int getViewRange() {
+
+            return viewRange;
+        }
+
+        public ImmutableSet<LevelType> getSupportedLayers() {
+
+            return supportedLayers;
+        }
+
+        public int getDamage() {
+
+            return damage;
+        }
+
+        public int getRemainingHealth() {
+
+            return Math.max( 0, maxHealth - damage );
+        }
+    }
+
+
+    /**
+     * @see IContainerModule
+     */
+    public static class Container extends ModuleInfo {
+
+        private final ResourceType resourceType;
+        private final int          capacity;
+        private final int          stock;
+
+        public Container(final ResourceType resourceType, final int capacity, final int stock) {
+            super( PublicModuleType.CONTAINER );
+
+            this.resourceType = resourceType;
+            this.capacity = capacity;
+            this.stock = stock;
+        }
+
+        public ResourceType getResourceType() {
+
+            return resourceType;
+        }
+
+        public int getCapacity() {
+
+            return capacity;
+        }
+
+        public int getStock() {
+
+            return stock;
+        }
+
+        public int getAvailable() {
+
+            return Math.max( 0, capacity - stock );
+        }
+    }
+
+
+    /**
+     * @see IMobilityModule
+     */
+    public static class Mobility extends ModuleInfo {
+
+        private final double movementSpeed;
+        private final double remainingSpeed;
+
+        public Mobility(final double movementSpeed, final double remainingSpeed) {
+            super( PublicModuleType.MOBILITY );
+
+            this.movementSpeed = movementSpeed;
+            this.remainingSpeed = remainingSpeed;
+        }
+
+        public double getMovementSpeed() {
+
+            return movementSpeed;
+        }
+
+        public double getRemainingSpeed() {
+
+            return remainingSpeed;
+        }
+    }
+
+
+    /**
+     * @see IExtractorModule
+     */
+    public static class Extractor extends ModuleInfo {
+
+        private final ResourceType resourceType;
+        private final int          speed;
+
+        public Extractor(final ResourceType resourceType, final int speed) {
+            super( PublicModuleType.EXTRACTOR );
+
+            this.resourceType = resourceType;
+            this.speed = speed;
+        }
+
+        public ResourceType getResourceType() {
+
+            return resourceType;
+        }
+
+        public int getSpeed() {
+
+            return speed;
+        }
+    }
+
+
+    /**
+     * @see IWeaponModule
+     */
+    public static class Weapon extends ModuleInfo {
+
+        private final int                     firePower;
+        private final int                     variance;
+        private final int                     range;
+        private final int                     repeat;
+        private final int                     ammunitionLoad;
+        private final ImmutableSet<LevelType> supportedLayers;
+        private final int                     repeated;
+        private final int                     ammunition;
+
+        public Weapon(final int firePower, final int variance, final int range, final int repeat, final int ammunitionLoad,
+                      final ImmutableSet<LevelType> supportedLayers, final int repeated, final int ammunition) {
+            super( PublicModuleType.WEAPON );
+
+            this.firePower = firePower;
+            this.variance = variance;
+            this.range = range;
+            this.repeat = repeat;
+            this.ammunitionLoad = ammunitionLoad;
+            this.supportedLayers = supportedLayers;
+            this.repeated = repeated;
+            this.ammunition = ammunition;
+        }
+
+        public int getFirePower() {
+
+            return firePower;
+        }
+
+        public int getVariance() {
+
+            return variance;
+        }
+
+        public int getRange() {
+
+            return range;
+        }
+
+        public int getRepeat() {
+
+            return repeat;
+        }
+
+        public int getAmmunitionLoad() {
+
+            return ammunitionLoad;
+        }
+
+        public ImmutableSet<LevelType> getSupportedLayers() {
+
+            return supportedLayers;
+        }
+
+        public int getRepeated() {
+
+            return repeated;
+        }
+
+        public int getAmmunition() {
+
+            return ammunition;
+        }
+    }
+
+
+    /**
+     * @see IConstructorModule
+     */
+    public static class Constructor extends ModuleInfo {
+
+        private final PublicModuleType<?> buildsModule;
+        private final int                 buildSpeed;
+        private final boolean             resourceConstrained;
+        private final int                 remainingSpeed;
+
+        public Constructor(final PublicModuleType<?> buildsModule, final int buildSpeed, final boolean resourceConstrained,
+                           final int remainingSpeed) {
+            super( PublicModuleType.CONSTRUCTOR );
+
+            this.buildsModule = buildsModule;
+            this.buildSpeed = buildSpeed;
+            this.resourceConstrained = resourceConstrained;
+            this.remainingSpeed = remainingSpeed;
+        }
+
+        public PublicModuleType<?> getBuildsModule() {
+
+            return buildsModule;
+        }
+
+        public int getBuildSpeed() {
+
+            return buildSpeed;
+        }
+
+        public boolean isResourceConstrained() {
+
+            return resourceConstrained;
+        }
+
+        public int getRemainingSpeed() {
+
+            return remainingSpeed;
+        }
+    }
+}
@@ -91,10 +91,12 @@ public class MapView extends View {
         Table<Integer, Integer, ITile> grid = HashBasedTable.create( levelSize.getHeight(), levelSize.getWidth() );
 
         // Iterate observable tiles and populate the grid.
-        localPlayer.observableTiles().forEach( tile -> {
-            Vec2 coordinate = positionToMapCoordinate( tile.getPosition() );
-            grid.put( coordinate.getY(), coordinate.getX(), tile );
-        } );
+        for (final ILevel level : gameController.get().getGame().getLevels())
+            localPlayer.getController().observableTileIndexes( level ).forEach( index -> {
+                ITile tile = level.tileAt( index );
+                Vec2 coordinate = positionToMapCoordinate( tile.getPosition() );
+                grid.put( coordinate.getY(), coordinate.getX(), tile );
+            } );
 
         // Draw grid in view.
         Box contentBox = getContentBoxOnScreen();
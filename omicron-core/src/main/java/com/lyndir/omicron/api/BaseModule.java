@@ -3,12 +3,15 @@ package com.lyndir.omicron.api;
 import static com.lyndir.omicron.api.Security.*;
 
 import com.google.common.collect.*;
+import com.lyndir.lhunath.opal.math.Vec2;
 import com.lyndir.lhunath.opal.system.error.AlreadyCheckedException;
 import com.lyndir.lhunath.opal.system.error.InternalInconsistencyException;
 import com.lyndir.lhunath.opal.system.util.ObjectUtils;
 import com.lyndir.omicron.api.error.NotAuthenticatedException;
 import com.lyndir.omicron.api.util.Maybe;
 import com.lyndir.omicron.api.util.Maybool;
+import com.lyndir.omicron.api.view.ModuleInfo;
+import java.util.BitSet;
 import java.util.Set;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
@@ -22,6 +25,7 @@ public class BaseModule extends Module implements IBaseModule, IBaseModuleContro
     private final int                     maxHealth;
     private final int                     armor;
     private final int                     viewRange;
+    private final ViewMask                viewMask;
     private final ImmutableSet<LevelType> supportedLayers;
     private       int                     damage;
 
@@ -32,6 +36,7 @@ public class BaseModule extends Module implements IBaseModule, IBaseModuleContro
         this.maxHealth = maxHealth;
         this.armor = armor;
         this.viewRange = viewRange;
+        viewMask = ViewMask.of( viewRange );
         this.supportedLayers = ImmutableSet.copyOf( supportedLayers );
     }
 
@@ -49,44 +54,48 @@ public class BaseModule extends Module implements IBaseModule, IBaseModuleContro
     @Override
     public Maybool canObserve(@Nonnull final GameObservable observable)
             throws NotAuthenticatedException {
-        if (observable.equals( getGameObject() ))
+        GameObject gameObject = getGameObject();
+        if (observable.equals( gameObject ))
             return Maybool.yes();
 
-        Maybe<Tile> ourLocation = getGameObject().getLocation();
+        if (isGod() || gameObject.isOwnedByCurrentPlayer()) {
+            // We know where we are and may know where the observable is, test its offset against our view.
+            Vec2 observablePosition;
+            if (observable instanceof Tile)
+                observablePosition = ((Tile) observable).getPosition();
+            else if (observable instanceof GameObject)
+                observablePosition = ((GameObject) observable).getLocationUnchecked().getPosition();
+            else
+                throw new InternalInconsistencyException( "Unexpected kind of observable: " + observable );
+
+            return Maybool.from( canObserve( gameObject.getLocationUnchecked().getPosition(), observablePosition ) );
+        }
+
+        Maybe<Tile> ourLocation = gameObject.getLocation();
         switch (ourLocation.presence()) {
             case EMPTY:
                 return Maybool.no();
             case UNKNOWN:
                 return Maybool.unknown();
             case PRESENT:
-                ITile observableLocation = null;
-                if (isGod() || getGameObject().isOwnedByCurrentPlayer()) {
-                    // FIXME: HACKS!  Get rid of the instanceof.
-                    if (observable instanceof ITile)
-                        observableLocation = (ITile) observable;
-                    else if (observable instanceof IGameObject)
-                        observableLocation = observable.getLocation().get();
-                    else
-                        throw new InternalInconsistencyException( "This hack failed.  We seem to have an unexpected kind of observable." );
-                }
-                else {
-                    Maybe <? extends ITile> location = observable.getLocation();
-                    switch (location.presence()) {
-                        case EMPTY:
-                            return Maybool.no();
-                        case UNKNOWN:
-                            return Maybool.unknown();
-                        case PRESENT:
-                            observableLocation = location.get();
-                    }
+                Maybe<? extends ITile> location = observable.getLocation();
+                switch (location.presence()) {
+                    case EMPTY:
+                        return Maybool.no();
+                    case UNKNOWN:
+                        return Maybool.unknown();
+                    case PRESENT:
+                        return Maybool.from( canObserve( ourLocation.get().getPosition(), location.get().getPosition() ) );
                 }
-
-                return Maybool.from(ourLocation.get().getPosition().distanceTo( observableLocation.getPosition() ) <= viewRange);
         }
 
         throw new AlreadyCheckedException( "Switch statement should handle all cases." );
     }
 
+    private boolean canObserve(final Vec2 ourPosition, final Vec2 observablePosition) {
+        return viewMask.contains( observablePosition.getX() - ourPosition.getX(), observablePosition.getY() - ourPosition.getY() );
+    }
+
     @Nonnull
     @NotNull
     @Override
@@ -95,7 +104,13 @@ public class BaseModule extends Module implements IBaseModule, IBaseModuleContro
         if (location.presence() != Maybe.Presence.PRESENT)
             return ImmutableList.<Tile>of().stream();
 
-        return location.get().getLevel().getTilesByPosition().values().stream().filter( tile -> canObserve( tile ).isTrue() );
+        // Only the tiles within our view disc can pass the test.
+        Level level = location.get().getLevel();
+        BitSet tiles = new BitSet( level.getTileCount() );
+        viewMask.rasterize( location.get().getPosition().getX(), location.get().getPosition().getY(), //
+                            level.getSize().getWidth(), level.getSize().getHeight(), tiles );
+
+        return tiles.stream().mapToObj( level::tileAt ).filter( tile -> canObserve( tile ).isTrue() );
     }
 
     @Override
@@ -123,6 +138,11 @@ public class BaseModule extends Module implements IBaseModule, IBaseModuleContro
         return supportedLayers;
     }
 
+    @Override
+    ModuleInfo getInfo() {
+        return new ModuleInfo.Base( maxHealth, armor, viewRange, supportedLayers, damage );
+    }
+
     @Override
     protected void onReset() {
     }
@@ -0,0 +1,487 @@
+package com.lyndir.omicron.api;
+
+import com.lyndir.lhunath.opal.math.Side;
+import com.lyndir.omicron.api.util.IndexPath;
+import com.lyndir.omicron.api.util.PathUtils;
+import com.lyndir.omicron.api.util.RadiusOffsets;
+import java.util.*;
+import javax.annotation.Nullable;
+
+
+/**
+ * An abstraction of the tiles of a level for finding long paths (HPA*).
+ *
+ * The level is partitioned into clusters, one per chunk (see {@link ILevel#CHUNK_SIZE}).  Where free tiles of two neighbouring clusters
+ * touch, their border gets entrances: pairs of tiles, one on either side.  Within each cluster, the amount of steps between its entrances
+ * is known.  A long path is first found through this graph of entrances, which is much smaller than the level, and then refined into
+ * tiles one leg at a time, only when the leg is needed.
+ *
+ * A graph plans for the objects of one player, against that player's view of the level: a tile is passable unless the player observes
+ * that it is occupied.  Tiles the player cannot observe are assumed to be free; the object that walks the path finds out when it gets
+ * there.  A graph without a player plans against the actual occupancy of the tiles.
+ *
+ * Borders and clusters are built when a search first reaches them, and remember the versions of the chunks they were built from.  The
+ * version of a chunk only moves on when its passable tiles change, which is when its occupancy changes (see
+ * {@link Level#getChunkVersion(int)}) or the player's view of it does.  Only the borders and the clusters around such a chunk are rebuilt,
+ * once a search reaches them again.  They are kept in arrays by chunk, and a cluster checks its versions only once per version of the
+ * level and the view, so a search that expands a node of an unchanged level only looks its cluster up.
+ *
+ * The graph counts steps.  A movement-cost profile gets its costs by multiplying the steps by its cost of a step in the level.
+ *
+ * @author lhunath, 2014-09-19
+ */
+class ClusterGraph {
+
+    // Runs of touching tiles along a border that are at least this wide get an entrance at either end instead of one in the middle.
+    private static final int   WIDE_ENTRANCE = 6;
+    // For each side, the side that faces it.
+    private static final int[] OPPOSITE_SIDE = new int[Level.SIDES.length];
+
+    static {
+        for (int side = 0; side < Level.SIDES.length; ++side)
+            for (int opposite = 0; opposite < Level.SIDES.length; ++opposite)
+                if (Level.SIDES[opposite].getDelta().getX() == -Level.SIDES[side].getDelta().getX() &&
+                    Level.SIDES[opposite].getDelta().getY() == -Level.SIDES[side].getDelta().getY())
+                    OPPOSITE_SIDE[side] = opposite;
+    }
+
+    private final Level     level;
+    @Nullable
+    private final Player    owner;
+    private final int       width;
+    private final int       chunksX;
+    private final int       chunksY;
+    private final Cluster[] clusters;
+    // For each side of each chunk, the border with the chunk on that side.  A border is found on both of its sides.
+    private final Border[]  borders;
+    // For each chunk, the version of its passable tiles, and the versions of the level's chunk and of the view they were last read at.
+    private final long[]    chunkVersions;
+    private final long[]    readChunkVersions;
+    private final long[]    readViewVersions;
+    // For each chunk, the bits of its passable tiles by their local index when they were last read.
+    private final long[][]  passableTiles;
+    private final long[]    readTiles = new long[ILevel.CHUNK_SIZE * ILevel.CHUNK_SIZE / Long.SIZE];
+    private long            lastChunkVersion;
+
+    /**
+     * @param owner The player whose view of the level to plan against, or {@code null} to plan against the actual occupancy of the tiles.
+     */
+    ClusterGraph(final Level level, @Nullable final Player owner) {
+        this.level = level;
+        this.owner = owner;
+        width = level.getSize().getWidth();
+        chunksX = (width + ILevel.CHUNK_SIZE - 1) / ILevel.CHUNK_SIZE;
+        chunksY = (level.getSize().getHeight() + ILevel.CHUNK_SIZE - 1) / ILevel.CHUNK_SIZE;
+        clusters = new Cluster[chunksX * chunksY];
+        borders = new Border[clusters.length * Level.SIDES.length];
+        chunkVersions = new long[clusters.length];
+        readChunkVersions = new long[clusters.length];
+        readViewVersions = new long[clusters.length];
+        passableTiles = new long[clusters.length][readTiles.length];
+        Arrays.fill( readChunkVersions, -1 );
+    }
+
+    /**
+     * Find the route with the fewest steps between two tiles through the entrances of the clusters.
+     *
+     * @param rootIndex   The index of the tile to start from.  It may be occupied, by the object that is looking for a route.
+     * @param targetIndex The index of the tile to find a route to.  It may be occupied: only the one looking for a route can tell whether
+     *                    to give up on it.
+     * @param maxSteps    The maximum amount of steps of the route.
+     *
+     * @return The route, whose legs are refined into tiles on demand, or empty if the target cannot be reached.
+     */
+    synchronized Optional<Route> findRoute(final int rootIndex, final int targetIndex, final int maxSteps) {
+        // Connect the root and the target to the entrances of their clusters.
+        Cluster rootCluster = getCluster( level.chunkIndex( rootIndex ) ), targetCluster = getCluster( level.chunkIndex( targetIndex ) );
+        int[] rootSteps = rootCluster.stepsFrom( rootIndex );
+        int[] targetSteps = targetCluster.stepsFrom( targetIndex );
+        int directSteps = rootCluster.chunk == targetCluster.chunk? rootCluster.steps( rootIndex, targetIndex ): -1;
+
+        // Search the entrances.
+        int targetX = targetIndex % width, targetY = targetIndex / width;
+        Optional<IndexPath> waypoints = PathUtils.findShortest( level.getTileCount(), rootIndex, targetIndex, (index, action) -> {
+            if (index == rootIndex) {
+                for (int n = 0; n < rootCluster.nodes.length; ++n)
+                    if (rootSteps[n] > 0)
+                        action.accept( rootCluster.nodes[n], rootSteps[n] );
+                if (directSteps >= 0)
+                    action.accept( targetIndex, directSteps );
+            }
+
+            Cluster cluster = getCluster( level.chunkIndex( index ) );
+            int node = cluster.node( index );
+            if (node < 0)
+                return;
+
+            if (index != rootIndex)
+                for (int n = 0; n < cluster.nodes.length; ++n) {
+                    int steps = cluster.steps[node * cluster.nodes.length + n];
+                    if (steps > 0)
+                        action.accept( cluster.nodes[n], steps );
+                }
+            for (final int link : cluster.links[node])
+                action.accept( link, 1 );
+
+            int targetNode = targetCluster.node( index );
+            if (targetNode >= 0 && targetSteps[targetNode] >= 0)
+                action.accept( targetIndex, targetSteps[targetNode] );
+        }, index -> RadiusOffsets.distance( targetX - index % width, targetY - index / width ), maxSteps );
+
+        return waypoints.map( Route::new );
+    }
+
+    /**
+     * @return true if the tile is free as far as the owner of this graph can tell: it is free, or the owner does not observe its contents.
+     */
+    boolean isPassable(final int index) {
+        GameObject contents = level.getContents( index );
+        if (contents == null)
+            return true;
+        if (owner == null)
+            return false;
+
+        return !owner.equals( contents.getOwner().orElse( null ) ) && !owner.getController().isObservablePosition( index );
+    }
+
+    private long getViewVersion() {
+        return owner == null? 0: owner.getController().getVisibilityVersion();
+    }
+
+    /**
+     * @return The cluster for the given chunk, rebuilt if it or any of its borders changed since it was last checked.
+     */
+    private Cluster getCluster(final int chunk) {
+        // Read the versions first: a change that comes after them also moves them on, so the cluster is checked again.
+        long levelVersion = level.getVersion(), viewVersion = getViewVersion();
+        Cluster cluster = clusters[chunk];
+        if (cluster != null && cluster.checkedVersion == levelVersion && cluster.checkedViewVersion == viewVersion)
+            return cluster;
+
+        if (cluster == null || !cluster.isCurrent())
+            cluster = clusters[chunk] = new Cluster( chunk );
+        cluster.checkedVersion = levelVersion;
+        cluster.checkedViewVersion = viewVersion;
+
+        return cluster;
+    }
+
+    /**
+     * @return The version of the passable tiles of a chunk, which moves on when they are read again after the chunk or the view changed,
+     * and turn out to be different.
+     */
+    private long getChunkVersion(final int chunk) {
+        long chunkVersion = level.getChunkVersion( chunk ), viewVersion = getViewVersion();
+        if (readChunkVersions[chunk] != chunkVersion || readViewVersions[chunk] != viewVersion) {
+            readChunkVersions[chunk] = chunkVersion;
+            readViewVersions[chunk] = viewVersion;
+
+            Arrays.fill( readTiles, 0 );
+            level.forEachTileInChunk( chunk, index -> {
+                if (isPassable( index ))
+                    readTiles[local( index ) / Long.SIZE] |= 1L << local( index );
+            } );
+            if (!Arrays.equals( readTiles, passableTiles[chunk] )) {
+                System.arraycopy( readTiles, 0, passableTiles[chunk], 0, readTiles.length );
+                chunkVersions[chunk] = ++lastChunkVersion;
+            }
+        }
+
+        return chunkVersions[chunk];
+    }
+
+    /**
+     * @return The border between a chunk and the chunk on the given side of it, rebuilt if either of them changed, or {@code null} if
+     * there is no chunk on that side.
+     */
+    private Border getBorder(final int chunk, final int side) {
+        int neighbourChunk = neighbourChunk( chunk, Level.SIDES[side] );
+        if (neighbourChunk < 0)
+            return null;
+
+        Border border = borders[chunk * Level.SIDES.length + side];
+        if (border == null || !border.isCurrent()) {
+            border = new Border( Math.min( chunk, neighbourChunk ), Math.max( chunk, neighbourChunk ) );
+            borders[chunk * Level.SIDES.length + side] = borders[neighbourChunk * Level.SIDES.length + OPPOSITE_SIDE[side]] = border;
+        }
+
+        return border;
+    }
+
+    /**
+     * @return The index of the chunk next to the given chunk on the given side, or {@code -1} if it is beyond the edge of the level.
+     */
+    private int neighbourChunk(final int chunk, final Side side) {
+        int x = chunk % chunksX + side.getDelta().getX(), y = chunk / chunksX + side.getDelta().getY();
+        if (x < 0 || y < 0 || x >= chunksX || y >= chunksY)
+            return -1;
+
+        return y * chunksX + x;
+    }
+
+    /**
+     * @return The position of a tile relative to the corner of its chunk, as an index into a square of {@link ILevel#CHUNK_SIZE} tiles.
+     */
+    private int local(final int index) {
+        return index / width % ILevel.CHUNK_SIZE * ILevel.CHUNK_SIZE + index % width % ILevel.CHUNK_SIZE;
+    }
+
+    /**
+     * The entrances between two neighbouring chunks.
+     */
+    private class Border {
+
+        private final int   lowChunk;
+        private final int   highChunk;
+        private final long  lowVersion;
+        private final long  highVersion;
+        // For each entrance, the index of its tile in the low chunk followed by the index of its tile in the high chunk.
+        private final int[] entrances;
+
+        Border(final int lowChunk, final int highChunk) {
+            this.lowChunk = lowChunk;
+            this.highChunk = highChunk;
+            lowVersion = getChunkVersion( lowChunk );
+            highVersion = getChunkVersion( highChunk );
+
+            // Find the free tiles of the low chunk that step onto a free tile of the high chunk, in runs of touching tiles.
+            List<int[]> runs = new ArrayList<>();
+            List<Integer> run = new ArrayList<>();
+            level.forEachTileInChunk( lowChunk, index -> {
+                if (!isPassable( index ))
+                    return;
+
+                int x = index % width, y = index / width;
+                for (int side = 0; side < Level.SIDES.length; ++side) {
+                    int neighbour = level.neighbourIndex( index, x, y, side );
+                    if (neighbour < 0 || level.chunkIndex( neighbour ) != highChunk || !isPassable( neighbour ))
+                        continue;
+
+                    if (!run.isEmpty()) {
+                        int last = run.get( run.size() - 2 );
+                        if (RadiusOffsets.distance( index % width - last % width, index / width - last / width ) > 1) {
+                            runs.add( toEntrances( run ) );
+                            run.clear();
+                        }
+                    }
+                    if (run.isEmpty() || run.get( run.size() - 2 ) != index) {
+                        run.add( index );
+                        run.add( neighbour );
+                    }
+                }
+            } );
+            if (!run.isEmpty())
+                runs.add( toEntrances( run ) );
+
+            int length = 0;
+            for (final int[] runEntrances : runs)
+                length += runEntrances.length;
+            entrances = new int[length];
+            int offset = 0;
+            for (final int[] runEntrances : runs) {
+                System.arraycopy( runEntrances, 0, entrances, offset, runEntrances.length );
+                offset += runEntrances.length;
+            }
+        }
+
+        /**
+         * @return true if neither chunk changed since the border was built.
+         */
+        boolean isCurrent() {
+            return lowVersion == getChunkVersion( lowChunk ) && highVersion == getChunkVersion( highChunk );
+        }
+
+        /**
+         * @param run The tile pairs of a run of touching tiles along the border.
+         *
+         * @return The tile pairs to use as entrances for the run: its middle pair if the run is narrow, otherwise its first and last pair.
+         */
+        private int[] toEntrances(final List<Integer> run) {
+            int pairs = run.size() / 2;
+            if (pairs < WIDE_ENTRANCE)
+                return new int[]{ run.get( pairs / 2 * 2 ), run.get( pairs / 2 * 2 + 1 ) };
+
+            return new int[]{ run.get( 0 ), run.get( 1 ), run.get( run.size() - 2 ), run.get( run.size() - 1 ) };
+        }
+    }
+
+
+    /**
+     * The entrances of a chunk and the amount of steps between them within the chunk.
+     */
+    private class Cluster {
+
+        private final int      chunk;
+        private final long     version;
+        private final Border[] borders = new Border[Level.SIDES.length];
+        // The tile indexes of the entrances, in ascending order.
+        private final int[]    nodes;
+        // For each pair of entrances, the amount of steps between them within the chunk, or -1 if there is no way.
+        private final int[]    steps;
+        // For each entrance, the tile indexes of the entrances of other chunks that are one step away.
+        private final int[][]  links;
+        // The versions of the level and the view when the cluster was last found to be current.
+        private long checkedVersion = -1;
+        private long checkedViewVersion;
+
+        Cluster(final int chunk) {
+            this.chunk = chunk;
+            version = getChunkVersion( chunk );
+            for (int side = 0; side < borders.length; ++side)
+                borders[side] = getBorder( chunk, side );
+
+            // Collect the entrances on our side of each border, with the entrances on the other side they link to.
+            SortedMap<Integer, List<Integer>> nodeLinks = new TreeMap<>();
+            for (final Border border : borders)
+                if (border != null)
+                    for (int e = 0; e < border.entrances.length; e += 2) {
+                        int low = border.entrances[e], high = border.entrances[e + 1];
+                        boolean ours = level.chunkIndex( low ) == chunk;
+                        nodeLinks.computeIfAbsent( ours? low: high, node -> new ArrayList<>() ).add( ours? high: low );
+                    }
+
+            nodes = new int[nodeLinks.size()];
+            links = new int[nodes.length][];
+            int n = 0;
+            for (final Map.Entry<Integer, List<Integer>> nodeLink : nodeLinks.entrySet()) {
+                nodes[n] = nodeLink.getKey();
+                links[n++] = nodeLink.getValue().stream().mapToInt( Integer::intValue ).toArray();
+            }
+
+            steps = new int[nodes.length * nodes.length];
+            for (n = 0; n < nodes.length; ++n)
+                System.arraycopy( stepsFrom( nodes[n] ), 0, steps, n * nodes.length, nodes.length );
+        }
+
+        /**
+         * @return true if neither the chunk nor any of its borders changed since the cluster was built.
+         */
+        boolean isCurrent() {
+            if (version != getChunkVersion( chunk ))
+                return false;
+            for (final Border border : borders)
+                if (border != null && !border.isCurrent())
+                    return false;
+
+            return true;
+        }
+
+        /**
+         * @return The position of the tile among the entrances, or a negative number if it is not an entrance.
+         */
+        int node(final int index) {
+            return Arrays.binarySearch( nodes, index );
+        }
+
+        /**
+         * @return For each entrance, the amount of steps from the given tile of this chunk to it within the chunk, or -1 if there is no
+         * way.
+         */
+        int[] stepsFrom(final int index) {
+            int[] tileSteps = flood( index, -1 );
+            int[] nodeSteps = new int[nodes.length];
+            for (int n = 0; n < nodes.length; ++n)
+                nodeSteps[n] = tileSteps[local( nodes[n] )];
+
+            return nodeSteps;
+        }
+
+        /**
+         * @return The amount of steps between two tiles of this chunk within the chunk, or -1 if there is no way.
+         */
+        int steps(final int fromIndex, final int toIndex) {
+            return flood( fromIndex, toIndex )[local( toIndex )];
+        }
+
+        /**
+         * Count the steps from a tile to the free tiles of this chunk, breadth-first.
+         *
+         * @param untilIndex The index of a tile to stop at once it is reached, even if it is occupied, or -1 to reach all tiles.
+         *
+         * @return For each tile of the chunk by its {@link #local(int)} index, the amount of steps to it, or -1 if it is not reached.
+         */
+        private int[] flood(final int index, final int untilIndex) {
+            int[] tileSteps = new int[ILevel.CHUNK_SIZE * ILevel.CHUNK_SIZE];
+            Arrays.fill( tileSteps, -1 );
+            int[] queue = new int[tileSteps.length];
+            int head = 0, tail = 0;
+            tileSteps[local( index )] = 0;
+            queue[tail++] = index;
+
+            while (head < tail) {
+                int tile = queue[head++];
+                if (tile == untilIndex)
+                    break;
+
+                int tileStep = tileSteps[local( tile )], x = tile % width, y = tile / width;
+                for (int side = 0; side < Level.SIDES.length; ++side) {
+                    int neighbour = level.neighbourIndex( tile, x, y, side );
+                    if (neighbour < 0 || level.chunkIndex( neighbour ) != chunk || tileSteps[local( neighbour )] >= 0 ||
+                        !isPassable( neighbour ) && neighbour != untilIndex)
+                        continue;
+
+                    tileSteps[local( neighbour )] = tileStep + 1;
+                    queue[tail++] = neighbour;
+                }
+            }
+
+            return tileSteps;
+        }
+
+    }
+
+
+    /**
+     * A route through the entrances of the clusters.  The legs between its waypoints are refined into tiles when they are needed.
+     */
+    class Route {
+
+        private final IndexPath                 waypoints;
+        private final List<Optional<IndexPath>> legs;
+
+        Route(final IndexPath waypoints) {
+            this.waypoints = waypoints;
+            legs = new ArrayList<>( Collections.<Optional<IndexPath>>nCopies( waypoints.getLength() - 1, null ) );
+        }
+
+        /**
+         * @return The tiles the route passes through on its way to the target, including the root and the target.
+         */
+        IndexPath getWaypoints() {
+            return waypoints;
+        }
+
+        int getLegCount() {
+            return legs.size();
+        }
+
+        /**
+         * Refine a leg of the route into tiles, against the passable tiles of the level as they are now.  The end of the leg is reached
+         * even if it is occupied.  A leg is refined only once.
+         *
+         * @param leg The position of the leg on the route, {@code 0} being the leg that starts at the root.
+         *
+         * @return The tiles from the start of the leg to its end, or empty if the way between them is no longer free.
+         */
+        Optional<IndexPath> getLeg(final int leg) {
+            synchronized (legs) {
+                Optional<IndexPath> refinedLeg = legs.get( leg );
+                if (refinedLeg == null) {
+                    int toIndex = waypoints.getIndex( leg + 1 );
+                    int toX = toIndex % width, toY = toIndex / width;
+                    refinedLeg = PathUtils.findShortest( level.getTileCount(), waypoints.getIndex( leg ), toIndex, (index, action) -> {
+                        int x = index % width, y = index / width;
+                        for (int side = 0; side < Level.SIDES.length; ++side) {
+                            int neighbour = level.neighbourIndex( index, x, y, side );
+                            if (neighbour >= 0 && (isPassable( neighbour ) || neighbour == toIndex))
+                                action.accept( neighbour, 1 );
+                        }
+                    }, index -> RadiusOffsets.distance( toX - index % width, toY - index / width ), Double.MAX_VALUE );
+                    legs.set( leg, refinedLeg );
+                }
+
+                return refinedLeg;
+            }
+        }
+    }
+}
@@ -25,11 +25,11 @@ import com.lyndir.lhunath.opal.system.util.*;
 import com.lyndir.omicron.api.error.NotAuthenticatedException;
 import com.lyndir.omicron.api.util.Maybe;
 import com.lyndir.omicron.api.util.PathUtils;
+import com.lyndir.omicron.api.view.ModuleInfo;
 import edu.umd.cs.findbugs.annotations.*;
 import java.lang.SuppressWarnings;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Stream;
+import java.util.function.ToDoubleBiFunction;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -60,6 +60,11 @@ public class ConstructorModule extends Module implements IConstructorModule, ICo
         return new Builder0( ModuleType.CONSTRUCTOR.getStandardCost().add( resourceCost ) );
     }
 
+    @Override
+    ModuleInfo getInfo() {
+        return new ModuleInfo.Constructor( buildsModule, buildSpeed, resourceConstrained, remainingSpeed );
+    }
+
     @Override
     protected void onReset() {
         resourceConstrained = false;
@@ -95,27 +100,22 @@ public class ConstructorModule extends Module implements IConstructorModule, ICo
 
                 return false;
             };
-            NNFunctionNN<PathUtils.Step<IGameObject>, Double> costFunction = gameObjectStep -> 1d;
-            NNFunctionNN<IGameObject, Stream<? extends IGameObject>> neighboursFunction = gameObject -> {
+            ToDoubleBiFunction<IGameObject, IGameObject> costFunction = (from, to) -> 1;
+            PathUtils.NeighbourVisitor<IGameObject> neighbourVisitor = (gameObject, action) -> {
                 Maybe<? extends ITile> location = gameObject.getLocation();
-                if (!location.isPresent())
-                    return ImmutableList.<IGameObject>of().stream();
-
-                return location.get().neighbours().stream() //
-                        .map( new Function<ITile, IGameObject>() {
-                            @Override
-                            public IGameObject apply(final ITile gameObject_) {
-                                return gameObject_.getContents().orNull();
-                            }
-                        } ) //
-                        .filter( gameObject_ -> gameObject_ != null );
+                if (location.isPresent())
+                    location.get().forEachNeighbour( tile -> {
+                        IGameObject contents = tile.getContents().orNull();
+                        if (contents != null)
+                            action.accept( contents );
+                    } );
             };
 
             /* Find paths to containers and deposit mined resources. */
             ImmutableMap.Builder<ContainerModule, Integer> borrowedResources = ImmutableMap.builder();
             while (!resourceCost.isZero()) {
                 Optional<PathUtils.Path<IGameObject>> path = PathUtils.find( getGameObject(), foundFunction, costFunction,
-                                                                             Constants.MAX_DISTANCE_TO_CONTAINER, neighboursFunction );
+                                                                             Constants.MAX_DISTANCE_TO_CONTAINER, neighbourVisitor );
                 if (!path.isPresent()) {
                     resourceConstrained = true;
                     // No more containers with available stock: not enough resources available to complete work unit.
@@ -308,28 +308,23 @@ public class ConstructorModule extends Module implements IConstructorModule, ICo
 
                         return false;
                     };
-                    NNFunctionNN<PathUtils.Step<IGameObject>, Double> costFunction = gameObjectStep -> 1d;
-                    NNFunctionNN<IGameObject, Stream<? extends IGameObject>> neighboursFunction = neighbourInput -> {
-                        ITile location = neighbourInput.getLocation().get();
-                        return location.neighbours().stream().map( new Function<ITile, IGameObject>() {
-                            @Override
-                            public IGameObject apply(final ITile tile) {
+                    ToDoubleBiFunction<IGameObject, IGameObject> costFunction = (from, to) -> 1;
+                    PathUtils.NeighbourVisitor<IGameObject> neighbourVisitor = (neighbourInput, action) -> //
+                            neighbourInput.getLocation().get().forEachNeighbour( tile -> {
                                 Maybe<? extends IGameObject> contents = tile.getContents();
                                 if (contents.isPresent())
                                     for (final ConstructorModule module : contents.get().getModules( ModuleType.CONSTRUCTOR ))
-                                        if (neighbourInput.equals( module.getTarget() ))
-                                            return contents.get();
-
-                                return null;
-                            }
-                        } ).filter( gameObject -> gameObject != null );
-                    };
+                                        if (neighbourInput.equals( module.getTarget() )) {
+                                            action.accept( contents.get() );
+                                            break;
+                                        }
+                            } );
 
                     // Find paths to constructor and use them to work on the job.
                     while (true) {
                         Optional<PathUtils.Path<IGameObject>> path = PathUtils.find( getGameObject(), foundFunction, costFunction,
                                                                                     Constants.MAX_DISTANCE_TO_CONSTRUCTOR,
-                                                                                    neighboursFunction );
+                                                                                    neighbourVisitor );
                         if (!path.isPresent())
                             // No more constructors with remaining speed or construction finished.
                             break;
@@ -1,6 +1,7 @@
 package com.lyndir.omicron.api;
 
 import com.google.common.base.Preconditions;
+import com.lyndir.omicron.api.view.ModuleInfo;
 
 
 public class ContainerModule extends Module implements IContainerModule, IContainerModuleController {
@@ -88,6 +89,11 @@ public class ContainerModule extends Module implements IContainerModule, IContai
         return depleted;
     }
 
+    @Override
+    ModuleInfo getInfo() {
+        return new ModuleInfo.Container( resourceType, capacity, stock );
+    }
+
     @Override
     protected void onReset() {
     }
@@ -4,9 +4,9 @@ import com.lyndir.lhunath.opal.system.logging.Logger;
 import com.lyndir.lhunath.opal.system.util.*;
 import com.lyndir.omicron.api.util.Maybe;
 import com.lyndir.omicron.api.util.PathUtils;
+import com.lyndir.omicron.api.view.ModuleInfo;
 import java.util.Optional;
-import java.util.function.Function;
-import java.util.stream.Stream;
+import java.util.function.ToDoubleBiFunction;
 
 
 public class ExtractorModule extends Module implements IExtractorModule, IExtractorModuleController {
@@ -46,6 +46,11 @@ public class ExtractorModule extends Module implements IExtractorModule, IExtrac
         return speed;
     }
 
+    @Override
+    ModuleInfo getInfo() {
+        return new ModuleInfo.Extractor( resourceType, speed );
+    }
+
     @Override
     protected void onReset() {
     }
@@ -73,20 +78,18 @@ public class ExtractorModule extends Module implements IExtractorModule, IExtrac
 
             return false;
         };
-        NNFunctionNN<PathUtils.Step<IGameObject>, Double> costFunction = gameObjectStep -> 1d;
-        NNFunctionNN<IGameObject, Stream<? extends IGameObject>> neighboursFunction = neighbour -> //
-                neighbour.getLocation().get().neighbours().stream() //
-                        .map( new Function<ITile, IGameObject>() {
-                            @Override
-                            public IGameObject apply(final ITile tile) {
-                                return tile.getContents().orNull();
-                            }
-                        } ).filter( gameObject -> gameObject != null );
+        ToDoubleBiFunction<IGameObject, IGameObject> costFunction = (from, to) -> 1;
+        PathUtils.NeighbourVisitor<IGameObject> neighbourVisitor = (neighbour, action) -> //
+                neighbour.getLocation().get().forEachNeighbour( tile -> {
+                    IGameObject contents = tile.getContents().orNull();
+                    if (contents != null)
+                        action.accept( contents );
+                } );
 
         // Find paths to containers and deposit mined resources.
         while (minedResources > 0) {
             Optional<PathUtils.Path<IGameObject>> path = PathUtils.find( getGameObject(), foundFunction, costFunction,
-                                                                         Constants.MAX_DISTANCE_TO_CONTAINER, neighboursFunction );
+                                                                         Constants.MAX_DISTANCE_TO_CONTAINER, neighbourVisitor );
             if (!path.isPresent())
                 // No more containers with available capacity.
                 break;
@@ -1,15 +1,18 @@
 package com.lyndir.omicron.api;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.*;
 import com.lyndir.lhunath.opal.math.*;
 import com.lyndir.lhunath.opal.system.error.AlreadyCheckedException;
 import com.lyndir.lhunath.opal.system.logging.Logger;
 import com.lyndir.lhunath.opal.system.util.*;
 import com.lyndir.omicron.api.error.NotAuthenticatedException;
-import com.lyndir.omicron.api.util.PathUtils;
 import java.util.*;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -26,13 +29,16 @@ public class Game extends MetaObject implements IGame {
     @SuppressWarnings("UnusedDeclaration")
     private static final Logger logger = Logger.get( Game.class );
 
-    private static final Random RANDOM = new Random();
-
     private final Deque<Turn> turns = new ConcurrentLinkedDeque<>();
 
     @ObjectMeta(ignoreFor = ObjectMeta.For.all)
     private final GameController gameController;
 
+    private final GameRandom            random;
+    @ObjectMeta(ignoreFor = ObjectMeta.For.all)
+    private final Supplier<SpawnPlacer> spawnPlacer = Suppliers.memoize(
+            () -> new SpawnPlacer( getLevel( LevelType.GROUND ), getLevel( LevelType.SKY ), getPlayers().size(),
+                                   getRandom().split( GameRandom.Stream.WORLD ) ) );
     private final Size                  levelSize;
     private final ImmutableList<Level>  levels;
     private final ImmutableList<Player> players;
@@ -43,13 +49,16 @@ public class Game extends MetaObject implements IGame {
         return new Builder();
     }
 
-    private Game(final Size levelSize, final Iterable<Player> players, final Stream<VictoryConditionType> victoryConditions,
+    private Game(final GameRandom random, final Size levelSize, final Map<LevelType, LevelDensity> levelDensities,
+                 final Iterable<Player> players, final Stream<VictoryConditionType> victoryConditions,
                  final Map<GameListener, Player> gameListeners, final GameResourceConfig resourceConfig, final GameUnitConfig unitConfig)
             throws NotAuthenticatedException {
         turns.add( new Turn() );
+        this.random = random;
         this.levelSize = levelSize;
-        levels = ImmutableList.of( new Level( levelSize, LevelType.GROUND ), new Level( levelSize, LevelType.SKY ),
-                                   new Level( levelSize, LevelType.SPACE ) );
+        levels = ImmutableList.of( new Level( levelSize, LevelType.GROUND, levelDensities.get( LevelType.GROUND ) ),
+                                   new Level( levelSize, LevelType.SKY, levelDensities.get( LevelType.SKY ) ),
+                                   new Level( levelSize, LevelType.SPACE, levelDensities.get( LevelType.SPACE ) ) );
         this.players = ImmutableList.copyOf( players );
         gameController = new GameController( this );
 
@@ -59,47 +68,7 @@ public class Game extends MetaObject implements IGame {
         Security.activateGame( this );
 
         // Add resources to the tiles.
-        // Figure out how many resources we're distributing for each of the resource types supported by our levels.
-        Map<ResourceType, Integer> remainingResources = new EnumMap<>( ResourceType.class );
-        remainingResources.putAll( FluentIterable.from( levels )
-                                                 .transformAndConcat( level -> level.getType().getSupportedResources() )
-                                                 .toMap( resourceConfig::quantity ) );
-        while (true) {
-            // Do we have remaining undistributed resources left?
-            while (remainingResources.values().remove( 0 ))
-                ;
-            if (remainingResources.isEmpty())
-                break;
-
-            // Go over our levels and distribute a puddle of remaining resources supported by them.
-            for (final Level level : levels) {
-                for (final ResourceType resourceType : level.getType().getSupportedResources()) {
-                    Integer remaining = remainingResources.get( resourceType );
-                    if (remaining == null || remaining == 0)
-                        // No resources left to distribute for this type.
-                        continue;
-
-                    // Pick a spot to start a puddle, and determine the puddle tiles.
-                    Vec2 position = Vec2.create( RANDOM.nextInt( level.getSize().getWidth() ),
-                                                 RANDOM.nextInt( level.getSize().getHeight() ) );
-                    Collection<? extends ITile> puddle = PathUtils.neighbours( level.getTile( position ).get(),
-                                                                               resourceConfig.puddleSize( resourceType ),
-                                                                               ITile::neighbours );
-
-                    // Fill the puddle tiles with resource.
-                    for (final ITile tile : puddle) {
-                        int tileResources = Math.min( remaining, RANDOM.nextInt( resourceConfig.quantityPerTile( resourceType ) ) );
-                        Tile.cast( tile ).addResourceQuantity( resourceType, tileResources );
-                        remaining -= tileResources;
-                        logger.trc( "Deposited %d %s at %s (%d left to deposit)", tileResources, resourceType, tile.getPosition(),
-                                    remaining );
-                    }
-
-                    // Remember how much undistributed resource is left.
-                    remainingResources.put( resourceType, remaining );
-                }
-            }
-        }
+        new WorldGenerator( random.split( GameRandom.Stream.WORLD ), resourceConfig ).generate( levels, ForkJoinPool.commonPool() );
 
         // Give each player some units.
         for (final Player player : players)
@@ -121,6 +90,20 @@ public class Game extends MetaObject implements IGame {
         return gameController;
     }
 
+    /**
+     * @return The random number generators of this game, derived from its seed.
+     */
+    GameRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * @return The placer of the players' starting units, created when it is first needed.
+     */
+    SpawnPlacer getSpawnPlacer() {
+        return spawnPlacer.get();
+    }
+
     @Override
     public Deque<Turn> getTurns() {
         return turns;
@@ -169,12 +152,25 @@ public class Game extends MetaObject implements IGame {
         return levels;
     }
 
+    @Override
+    public Level getLevel(final LevelType levelType) {
+        for (final Level level : levels)
+            if (level.getType() == levelType)
+                return level;
+
+        throw new AlreadyCheckedException();
+    }
+
     public static class Builder implements IBuilder {
 
         private final Map<GameListener, Player>        gameListeners     = Maps.newLinkedHashMap();
         private final List<Player>                     players           = Lists.newLinkedList();
         private final List<PublicVictoryConditionType> victoryConditions = Lists.newArrayList( PublicVictoryConditionType.values() );
+        private final Map<LevelType, LevelDensity>     levelDensities    = Maps.newEnumMap(
+                ImmutableMap.of( LevelType.GROUND, LevelDensity.DENSE, LevelType.SKY, LevelDensity.SPARSE, LevelType.SPACE,
+                                 LevelDensity.SPARSE ) );
 
+        private long                 seed           = ThreadLocalRandom.current().nextLong();
         private Size                 levelSize      = new Size( 200, 200 );
         private int                  nextPlayerID   = 1;
         private int                  totalPlayers   = 4;
@@ -188,15 +184,28 @@ public class Game extends MetaObject implements IGame {
         public Game build() {
             return Security.godRun( () -> {
                 // Add random players until totalPlayers count is satisfied.
+                GameRandom random = new GameRandom( seed );
                 while (players.size() < totalPlayers)
-                    players.add( new Player( nextPlayerID(), null, Player.randomName(), //
+                    players.add( new Player( nextPlayerID(), null, Player.randomName( random ), //
                                              Color.Template.randomColor(), Color.Template.randomColor() ) );
 
-                return new Game( levelSize, players, VictoryConditionType.cast( victoryConditions ), gameListeners, resourceConfig,
-                                 GameUnitConfig.cast( unitConfig ) );
+                return new Game( random, levelSize, levelDensities, players, VictoryConditionType.cast( victoryConditions ), gameListeners,
+                                 resourceConfig, GameUnitConfig.cast( unitConfig ) );
             } );
         }
 
+        @Override
+        public long getSeed() {
+            return seed;
+        }
+
+        @Override
+        public Builder setSeed(final long seed) {
+            this.seed = seed;
+
+            return this;
+        }
+
         @Override
         public Size getLevelSize() {
             return levelSize;
@@ -287,6 +296,18 @@ public class Game extends MetaObject implements IGame {
             return this;
         }
 
+        @Override
+        public LevelDensity getLevelDensity(final LevelType levelType) {
+            return levelDensities.get( levelType );
+        }
+
+        @Override
+        public Builder setLevelDensity(final LevelType levelType, final LevelDensity levelDensity) {
+            levelDensities.put( levelType, levelDensity );
+
+            return this;
+        }
+
         @Override
         public int nextPlayerID() {
             return nextPlayerID++;
@@ -304,41 +325,17 @@ public class Game extends MetaObject implements IGame {
             @Override
             void addUnits(final Game game, final Player player) {
                 // Find tiles for the units.
-                ILevel ground = game.getLevel( LevelType.GROUND );
-                ILevel sky = game.getLevel( LevelType.SKY );
-                Optional<? extends ITile> engineerTile, airshipTile, scoutTile;
-                while (true) {
-                    Vec2 engineerPosition = Vec2.create( RANDOM.nextInt( ground.getSize().getWidth() ),
-                                                         RANDOM.nextInt( ground.getSize().getHeight() ) );
-
-                    Side randomSide = Side.values()[RANDOM.nextInt( Side.values().length )];
-                    Vec2 airshipPosition = engineerPosition.translate( randomSide.getDelta() );
-
-                    randomSide = Side.values()[RANDOM.nextInt( Side.values().length )];
-                    Vec2 scoutPosition = engineerPosition.translate( randomSide.getDelta() );
-
-                    engineerTile = ground.getTile( engineerPosition );
-                    if (!engineerTile.isPresent() || engineerTile.get().getContents().isPresent() || //
-                        !engineerTile.get().getResourceQuantity( ResourceType.METALS ).isPresent())
-                        continue;
-                    airshipTile = sky.getTile( airshipPosition );
-                    if (!airshipTile.isPresent() || airshipTile.get().getContents().isPresent())
-                        continue;
-                    scoutTile = ground.getTile( scoutPosition );
-                    if (!scoutTile.isPresent() || scoutTile.get().getContents().isPresent())
-                        continue;
-
-                    break;
-                }
+                Tile[] spawn = game.getSpawnPlacer().place( player );
+                Tile engineerTile = spawn[0], airshipTile = spawn[1], scoutTile = spawn[2];
 
                 // Add the units.
-                GameObject engineer = new GameObject( UnitTypes.ENGINEER, game, player, Tile.cast( engineerTile.get() ) );
+                GameObject engineer = new GameObject( UnitTypes.ENGINEER, game, player, engineerTile );
                 engineer.onModule( ModuleType.CONTAINER, module -> module.getResourceType() == ResourceType.METALS,
                                    module -> module.addStock( Integer.MAX_VALUE ) );
                 engineer.register();
 
-                new GameObject( UnitTypes.AIRSHIP, game, player, Tile.cast( airshipTile.get() ) ).register();
-                new GameObject( UnitTypes.SCOUT, game, player, Tile.cast( scoutTile.get() ) ).register();
+                new GameObject( UnitTypes.AIRSHIP, game, player, airshipTile ).register();
+                new GameObject( UnitTypes.SCOUT, game, player, scoutTile ).register();
             }
         };
 
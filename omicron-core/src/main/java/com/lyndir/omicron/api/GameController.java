@@ -2,12 +2,11 @@ package com.lyndir.omicron.api;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.*;
-import com.lyndir.lhunath.opal.system.error.InternalInconsistencyException;
+import com.lyndir.lhunath.opal.math.Vec2;
 import com.lyndir.lhunath.opal.system.logging.Logger;
 import com.lyndir.lhunath.opal.system.util.*;
 import com.lyndir.omicron.api.error.NotAuthenticatedException;
 import com.lyndir.omicron.api.view.PlayerGameInfo;
-import java.lang.reflect.*;
 import java.util.*;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
@@ -19,11 +18,16 @@ public class GameController implements IGameController {
     @SuppressWarnings("UnusedDeclaration")
     private static final Logger logger = Logger.get( GameController.class );
 
-    private final Game game;
-    private final Map<GameListener, Player> gameListeners = Collections.synchronizedMap( Maps.<GameListener, Player>newLinkedHashMap() );
+    private final Game          game;
+    private final InterestIndex interests;
+    private final Map<GameListener, Player>   gameListeners = Collections.synchronizedMap( Maps.<GameListener, Player>newLinkedHashMap() );
+    private final GameListener                allDispatcher = new EventDispatcher( null );
+    // The events held back by the batch that is being carried out on each thread, if any.
+    private final ThreadLocal<List<Runnable>> batches       = new ThreadLocal<>();
 
     GameController(final Game game) {
         this.game = game;
+        interests = new InterestIndex( game.getLevelSize(), game.getPlayers() );
 
         for (final Player player : game.getPlayers())
             player.getController().setGameController( this );
@@ -44,6 +48,10 @@ public class GameController implements IGameController {
         return game;
     }
 
+    InterestIndex getInterests() {
+        return interests;
+    }
+
     void addInternalGameListener(final GameListener gameListener) {
         gameListeners.put( gameListener, null );
     }
@@ -68,7 +76,7 @@ public class GameController implements IGameController {
     @Override
     public PlayerGameInfo getPlayerGameInfo(final IPlayer player)
             throws NotAuthenticatedException {
-        if (player.observableTiles().iterator().hasNext())
+        if (Player.cast( player ).getController().hasObservableTiles())
             return PlayerGameInfo.discovered( player, player.getScore() );
 
         return PlayerGameInfo.undiscovered( player );
@@ -151,84 +159,245 @@ public class GameController implements IGameController {
     }
 
     /**
-     * Get a game listener proxy to call an event on that should be fired for all game listeners.
+     * Get a game listener to call an event on that should be fired for all game listeners.
      */
     GameListener fire() {
-        return TypeUtils.newProxyInstance( GameListener.class, (proxy, method, args) -> {
-            synchronized (gameListeners) {
-                if (method.getDeclaringClass() == Object.class)
-                    return Void.TYPE;
-
-                logger.dbg( "%s: %s", method.getName(), ObjectUtils.describe( args ) );
-                for (final Map.Entry<GameListener, Player> gameListenerEntry : gameListeners.entrySet()) {
-                    Player gameListenerOwner = gameListenerEntry.getValue();
-                    if (gameListenerOwner == null)
-                        Security.godRun( newGameListenerJob( gameListenerEntry.getKey(), method, args ) );
-                    else
-                        Security.playerRun( gameListenerOwner, newGameListenerJob( gameListenerEntry.getKey(), method, args ) );
-                }
-
-                return Void.TYPE;
-            }
-        } );
+        return allDispatcher;
     }
 
     /**
-     * Get a game listener proxy to call an event that should be fired for all game listeners that are either internal or registered by
-     * players that pass the playerCondition.
+     * Get a game listener to call an event that should be fired for all game listeners that are either internal or registered by players
+     * that pass the playerCondition.
      *
      * @param playerCondition The predicate that should hold true for all players eligible to receive the notification.
      */
     GameListener fireIfPlayer(@Nonnull final PredicateNN<IPlayer> playerCondition) {
-        return TypeUtils.newProxyInstance( GameListener.class, (proxy, method, args) -> {
-            synchronized (gameListeners) {
-                if (method.getDeclaringClass() == Object.class)
-                    return Void.TYPE;
-
-                logger.dbg( "%s: %s", method.getName(), ObjectUtils.describe( args ) );
-                for (final Map.Entry<GameListener, Player> gameListenerEntry : gameListeners.entrySet()) {
-                    Player gameListenerOwner = gameListenerEntry.getValue();
-                    if (gameListenerOwner == null)
-                        Security.godRun( newGameListenerJob( gameListenerEntry.getKey(), method, args ) );
-                    else if (playerCondition.apply( gameListenerOwner ))
-                        Security.playerRun( gameListenerOwner, newGameListenerJob( gameListenerEntry.getKey(), method, args ) );
-                }
-
-                return Void.TYPE;
-            }
-        } );
+        return new EventDispatcher( playerCondition );
     }
 
     /**
-     * Get a game listener proxy to call an event on that should be fired for all game listeners that are either internal or registered by
+     * Get a game listener to call an event on that should be fired for all game listeners that are either internal or registered by
      * players that can observe the given location.
      *
      * @param location The location that should be observable.
      */
     GameListener fireIfObservable(@Nonnull final ITile location) {
-        return fireIfPlayer( player -> Security.godRun( () -> player.canObserve( location ).isTrue() ) );
+        Tile tile = Tile.cast( location );
+        GameObject contents = tile.getLevel().getContents( tile.getIndex() );
+        Player contentsOwner = contents == null? null: contents.getOwner().orElse( null );
+
+        return fireIfObservable( tile.getPosition(), contentsOwner );
     }
 
     /**
-     * Get a game listener proxy to call an event on that should be fired for all game listeners that are either internal or registered by
+     * Get a game listener to call an event on that should be fired for all game listeners that are either internal or registered by
      * players that can observe the given object.
      *
      * @param gameObject The game object that should be observable.
      */
     GameListener fireIfObservable(@Nonnull final IGameObject gameObject) {
-        return fireIfPlayer( player -> Security.godRun( () -> player.canObserve( gameObject ).isTrue() ) );
+        GameObject object = GameObject.cast( gameObject );
+
+        return fireIfObservable( object.getLocationUnchecked().getPosition(), object.getOwner().orElse( null ) );
+    }
+
+    /**
+     * @param position The position of the event, which players observe according to the interest index.
+     * @param owner    The player that owns the subject of the event, which observes it regardless of its position.
+     */
+    private GameListener fireIfObservable(final Vec2 position, @Nullable final Player owner) {
+        int positionIndex = interests.positionIndex( position );
+
+        return fireIfPlayer( player -> player.equals( owner ) || interests.isObserving( positionIndex, player ) );
     }
 
-    private static Runnable newGameListenerJob(final GameListener gameListener, final Method method, final Object[] args) {
-        return () -> {
-            try {
-                //noinspection unchecked
-                if (method.getDeclaringClass() == GameListener.class)
-                    method.invoke( gameListener, args );
+    /**
+     * Carry out a job, holding back all the events it fires until it is done.  The events are then fired back to back, without the events
+     * of other threads interleaving with them.  Each event goes to the listeners that were eligible for it when it happened.  If the job
+     * fails, the events of the changes it did make are still fired.
+     *
+     * @param job The job whose events to batch.
+     */
+    void fireBatch(final Runnable job) {
+        List<Runnable> outerBatch = batches.get();
+        List<Runnable> batch = new ArrayList<>();
+        batches.set( batch );
+        try {
+            job.run();
+        }
+        finally {
+            batches.set( outerBatch );
+            if (outerBatch != null)
+                // Part of a bigger batch, which fires our events along with its own.
+                outerBatch.addAll( batch );
+            else
+                synchronized (gameListeners) {
+                    for (final Runnable event : batch)
+                        event.run();
+                }
+        }
+    }
+
+    /**
+     * Fire an event for all game listeners that are either internal or registered by players that pass the playerCondition.
+     *
+     * Each listener receives the event in the security context of the player that registered it, or as god if it is internal.
+     *
+     * @param playerCondition The predicate that should hold true for all players eligible to receive the event, or {@code null} if all
+     *                        players are.
+     */
+    void fire(final GameEvent event, @Nullable final PredicateNN<IPlayer> playerCondition) {
+        List<Runnable> batch = batches.get();
+        if (batch != null) {
+            // Hold the event back, but pick its listeners now, while the players observe what they did when it happened.
+            List<Map.Entry<GameListener, Player>> receivers = new ArrayList<>();
+            synchronized (gameListeners) {
+                for (final Map.Entry<GameListener, Player> gameListenerEntry : gameListeners.entrySet()) {
+                    Player gameListenerOwner = gameListenerEntry.getValue();
+                    if (gameListenerOwner == null || playerCondition == null || playerCondition.apply( gameListenerOwner ))
+                        receivers.add( Maps.immutableEntry( gameListenerEntry.getKey(), gameListenerOwner ) );
+                }
             }
-            catch (IllegalAccessException | InvocationTargetException e) {
-                throw new InternalInconsistencyException( "Fix: " + gameListener, e );
+            batch.add( () -> {
+                logger.dbg( "%s", event );
+                for (final Map.Entry<GameListener, Player> receiver : receivers)
+                    deliver( event, receiver.getKey(), receiver.getValue() );
+            } );
+            return;
+        }
+
+        synchronized (gameListeners) {
+            logger.dbg( "%s", event );
+            for (final Map.Entry<GameListener, Player> gameListenerEntry : gameListeners.entrySet()) {
+                Player gameListenerOwner = gameListenerEntry.getValue();
+                if (gameListenerOwner == null || playerCondition == null || playerCondition.apply( gameListenerOwner ))
+                    deliver( event, gameListenerEntry.getKey(), gameListenerOwner );
             }
-        };
+        }
+    }
+
+    /**
+     * Deliver an event to a listener, in the security context of the player that registered it, or as god if it is internal.
+     */
+    private static void deliver(final GameEvent event, final GameListener gameListener, @Nullable final Player gameListenerOwner) {
+        if (gameListenerOwner == null)
+            Security.godRun( event, gameListener );
+        else
+            Security.playerRun( gameListenerOwner, event, gameListener );
+    }
+
+    /**
+     * A game listener that turns each call into a {@link GameEvent} and fires it for the game listeners of players that pass its condition.
+     */
+    private class EventDispatcher extends GameListener {
+
+        @Nullable
+        private final PredicateNN<IPlayer> playerCondition;
+
+        private EventDispatcher(@Nullable final PredicateNN<IPlayer> playerCondition) {
+            this.playerCondition = playerCondition;
+        }
+
+        @Override
+        public void onPlayerReady(final IPlayer readyPlayer) {
+            fire( new GameEvent.PlayerReady( readyPlayer ), playerCondition );
+        }
+
+        @Override
+        public void onNewTurn(final Turn currentTurn) {
+            fire( new GameEvent.NewTurn( currentTurn ), playerCondition );
+        }
+
+        @Override
+        public void onBaseDamaged(final IBaseModule baseModule, final ChangeInt damage) {
+            fire( new GameEvent.BaseDamaged( baseModule, damage ), playerCondition );
+        }
+
+        @Override
+        public void onTileContents(final ITile tile, final Change<IGameObject> contents) {
+            fire( new GameEvent.TileContents( tile, contents ), playerCondition );
+        }
+
+        @Override
+        public void onTileResources(final ITile tile, final ResourceType resourceType, final ChangeInt resourceQuantity) {
+            fire( new GameEvent.TileResources( tile, resourceType, resourceQuantity ), playerCondition );
+        }
+
+        @Override
+        public void onPlayerScore(final IPlayer player, final ChangeInt score) {
+            fire( new GameEvent.PlayerScore( player, score ), playerCondition );
+        }
+
+        @Override
+        public void onPlayerGainedObject(final IPlayer player, final IGameObject gameObject) {
+            fire( new GameEvent.PlayerGainedObject( player, gameObject ), playerCondition );
+        }
+
+        @Override
+        public void onPlayerLostObject(final IPlayer player, final IGameObject gameObject) {
+            fire( new GameEvent.PlayerLostObject( player, gameObject ), playerCondition );
+        }
+
+        @Override
+        public void onUnitCaptured(final IGameObject gameObject, final Change<IPlayer> owner) {
+            fire( new GameEvent.UnitCaptured( gameObject, owner ), playerCondition );
+        }
+
+        @Override
+        public void onUnitMoved(final IGameObject gameObject, final Change<ITile> location) {
+            fire( new GameEvent.UnitMoved( gameObject, location ), playerCondition );
+        }
+
+        @Override
+        public void onUnitDied(final IGameObject gameObject) {
+            fire( new GameEvent.UnitDied( gameObject ), playerCondition );
+        }
+
+        @Override
+        public void onContainerStockChanged(final IContainerModule containerModule, final ChangeInt stock) {
+            fire( new GameEvent.ContainerStockChanged( containerModule, stock ), playerCondition );
+        }
+
+        @Override
+        public void onMobilityLeveled(final IMobilityModule mobilityModule, final Change<ITile> location, final ChangeDbl remainingSpeed) {
+            fire( new GameEvent.MobilityLeveled( mobilityModule, location, remainingSpeed ), playerCondition );
+        }
+
+        @Override
+        public void onMobilityMoved(final IMobilityModule mobilityModule, final Change<ITile> location, final ChangeDbl remainingSpeed) {
+            fire( new GameEvent.MobilityMoved( mobilityModule, location, remainingSpeed ), playerCondition );
+        }
+
+        @Override
+        public void onConstructorWorked(final IConstructorModule constructorModule, final ChangeInt remainingSpeed) {
+            fire( new GameEvent.ConstructorWorked( constructorModule, remainingSpeed ), playerCondition );
+        }
+
+        @Override
+        public void onConstructorTargeted(final IConstructorModule constructorModule, final Change<IGameObject> target) {
+            fire( new GameEvent.ConstructorTargeted( constructorModule, target ), playerCondition );
+        }
+
+        @Override
+        public void onConstructionSiteWorked(final IConstructorModuleController.IConstructionSite constructionSite,
+                                             final PublicModuleType<?> moduleType, final ChangeInt remainingWork) {
+            fire( new GameEvent.ConstructionSiteWorked( constructionSite, moduleType, remainingWork ), playerCondition );
+        }
+
+        @Override
+        public void onWeaponFired(final IWeaponModule weaponModule, final ITile target, final ChangeInt repeated,
+                                  final ChangeInt ammunition) {
+            fire( new GameEvent.WeaponFired( weaponModule, target, repeated, ammunition ), playerCondition );
+        }
+
+        @Override
+        public void onGameStarted(final IGame game) {
+            fire( new GameEvent.GameStarted( game ), playerCondition );
+        }
+
+        @Override
+        public void onGameEnded(final IGame game, final PublicVictoryConditionType victoryCondition, @Nullable final IPlayer victor) {
+            fire( new GameEvent.GameEnded( game, victoryCondition, victor ), playerCondition );
+        }
     }
 }
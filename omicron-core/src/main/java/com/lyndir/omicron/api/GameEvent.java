@@ -0,0 +1,430 @@
+package com.lyndir.omicron.api;
+
+import com.lyndir.lhunath.opal.system.util.MetaObject;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+
+/**
+ * An event of the game, as it is delivered to each {@link GameListener}.
+ *
+ * There is one kind of event for each method of {@link GameListener}.  An event holds the arguments of its method and calls it on a
+ * listener directly, so firing it to many listeners needs neither reflection nor a new object for each of them.
+ *
+ * @author lhunath, 2014-09-19
+ */
+abstract class GameEvent extends MetaObject implements Consumer<GameListener> {
+
+    /**
+     * Deliver this event to a listener by calling the listener's method for it.
+     */
+    @Override
+    public abstract void accept(GameListener gameListener);
+
+    /**
+     * @see GameListener#onPlayerReady(IPlayer)
+     */
+    static class PlayerReady extends GameEvent {
+
+        private final IPlayer readyPlayer;
+
+        PlayerReady(final IPlayer readyPlayer) {
+            this.readyPlayer = readyPlayer;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onPlayerReady( readyPlayer );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onNewTurn(Turn)
+     */
+    static class NewTurn extends GameEvent {
+
+        private final Turn currentTurn;
+
+        NewTurn(final Turn currentTurn) {
+            this.currentTurn = currentTurn;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onNewTurn( currentTurn );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onBaseDamaged(IBaseModule, ChangeInt)
+     */
+    static class BaseDamaged extends GameEvent {
+
+        private final IBaseModule baseModule;
+        private final ChangeInt   damage;
+
+        BaseDamaged(final IBaseModule baseModule, final ChangeInt damage) {
+            this.baseModule = baseModule;
+            this.damage = damage;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onBaseDamaged( baseModule, damage );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onTileContents(ITile, Change)
+     */
+    static class TileContents extends GameEvent {
+
+        private final ITile               tile;
+        private final Change<IGameObject> contents;
+
+        TileContents(final ITile tile, final Change<IGameObject> contents) {
+            this.tile = tile;
+            this.contents = contents;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onTileContents( tile, contents );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onTileResources(ITile, ResourceType, ChangeInt)
+     */
+    static class TileResources extends GameEvent {
+
+        private final ITile        tile;
+        private final ResourceType resourceType;
+        private final ChangeInt    resourceQuantity;
+
+        TileResources(final ITile tile, final ResourceType resourceType, final ChangeInt resourceQuantity) {
+            this.tile = tile;
+            this.resourceType = resourceType;
+            this.resourceQuantity = resourceQuantity;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onTileResources( tile, resourceType, resourceQuantity );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onPlayerScore(IPlayer, ChangeInt)
+     */
+    static class PlayerScore extends GameEvent {
+
+        private final IPlayer   player;
+        private final ChangeInt score;
+
+        PlayerScore(final IPlayer player, final ChangeInt score) {
+            this.player = player;
+            this.score = score;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onPlayerScore( player, score );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onPlayerGainedObject(IPlayer, IGameObject)
+     */
+    static class PlayerGainedObject extends GameEvent {
+
+        private final IPlayer     player;
+        private final IGameObject gameObject;
+
+        PlayerGainedObject(final IPlayer player, final IGameObject gameObject) {
+            this.player = player;
+            this.gameObject = gameObject;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onPlayerGainedObject( player, gameObject );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onPlayerLostObject(IPlayer, IGameObject)
+     */
+    static class PlayerLostObject extends GameEvent {
+
+        private final IPlayer     player;
+        private final IGameObject gameObject;
+
+        PlayerLostObject(final IPlayer player, final IGameObject gameObject) {
+            this.player = player;
+            this.gameObject = gameObject;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onPlayerLostObject( player, gameObject );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onUnitCaptured(IGameObject, Change)
+     */
+    static class UnitCaptured extends GameEvent {
+
+        private final IGameObject     gameObject;
+        private final Change<IPlayer> owner;
+
+        UnitCaptured(final IGameObject gameObject, final Change<IPlayer> owner) {
+            this.gameObject = gameObject;
+            this.owner = owner;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onUnitCaptured( gameObject, owner );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onUnitMoved(IGameObject, Change)
+     */
+    static class UnitMoved extends GameEvent {
+
+        private final IGameObject   gameObject;
+        private final Change<ITile> location;
+
+        UnitMoved(final IGameObject gameObject, final Change<ITile> location) {
+            this.gameObject = gameObject;
+            this.location = location;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onUnitMoved( gameObject, location );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onUnitDied(IGameObject)
+     */
+    static class UnitDied extends GameEvent {
+
+        private final IGameObject gameObject;
+
+        UnitDied(final IGameObject gameObject) {
+            this.gameObject = gameObject;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onUnitDied( gameObject );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onContainerStockChanged(IContainerModule, ChangeInt)
+     */
+    static class ContainerStockChanged extends GameEvent {
+
+        private final IContainerModule containerModule;
+        private final ChangeInt        stock;
+
+        ContainerStockChanged(final IContainerModule containerModule, final ChangeInt stock) {
+            this.containerModule = containerModule;
+            this.stock = stock;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onContainerStockChanged( containerModule, stock );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onMobilityLeveled(IMobilityModule, Change, ChangeDbl)
+     */
+    static class MobilityLeveled extends GameEvent {
+
+        private final IMobilityModule mobilityModule;
+        private final Change<ITile>   location;
+        private final ChangeDbl       remainingSpeed;
+
+        MobilityLeveled(final IMobilityModule mobilityModule, final Change<ITile> location, final ChangeDbl remainingSpeed) {
+            this.mobilityModule = mobilityModule;
+            this.location = location;
+            this.remainingSpeed = remainingSpeed;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onMobilityLeveled( mobilityModule, location, remainingSpeed );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onMobilityMoved(IMobilityModule, Change, ChangeDbl)
+     */
+    static class MobilityMoved extends GameEvent {
+
+        private final IMobilityModule mobilityModule;
+        private final Change<ITile>   location;
+        private final ChangeDbl       remainingSpeed;
+
+        MobilityMoved(final IMobilityModule mobilityModule, final Change<ITile> location, final ChangeDbl remainingSpeed) {
+            this.mobilityModule = mobilityModule;
+            this.location = location;
+            this.remainingSpeed = remainingSpeed;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onMobilityMoved( mobilityModule, location, remainingSpeed );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onConstructorWorked(IConstructorModule, ChangeInt)
+     */
+    static class ConstructorWorked extends GameEvent {
+
+        private final IConstructorModule constructorModule;
+        private final ChangeInt          remainingSpeed;
+
+        ConstructorWorked(final IConstructorModule constructorModule, final ChangeInt remainingSpeed) {
+            this.constructorModule = constructorModule;
+            this.remainingSpeed = remainingSpeed;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onConstructorWorked( constructorModule, remainingSpeed );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onConstructorTargeted(IConstructorModule, Change)
+     */
+    static class ConstructorTargeted extends GameEvent {
+
+        private final IConstructorModule  constructorModule;
+        private final Change<IGameObject> target;
+
+        ConstructorTargeted(final IConstructorModule constructorModule, final Change<IGameObject> target) {
+            this.constructorModule = constructorModule;
+            this.target = target;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onConstructorTargeted( constructorModule, target );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onConstructionSiteWorked(IConstructorModuleController.IConstructionSite, PublicModuleType, ChangeInt)
+     */
+    static class ConstructionSiteWorked extends GameEvent {
+
+        private final IConstructorModuleController.IConstructionSite constructionSite;
+        private final PublicModuleType<?>                            moduleType;
+        private final ChangeInt                                      remainingWork;
+
+        ConstructionSiteWorked(final IConstructorModuleController.IConstructionSite constructionSite, final PublicModuleType<?> moduleType,
+                               final ChangeInt remainingWork) {
+            this.constructionSite = constructionSite;
+            this.moduleType = moduleType;
+            this.remainingWork = remainingWork;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onConstructionSiteWorked( constructionSite, moduleType, remainingWork );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onWeaponFired(IWeaponModule, ITile, ChangeInt, ChangeInt)
+     */
+    static class WeaponFired extends GameEvent {
+
+        private final IWeaponModule weaponModule;
+        private final ITile         target;
+        private final ChangeInt     repeated;
+        private final ChangeInt     ammunition;
+
+        WeaponFired(final IWeaponModule weaponModule, final ITile target, final ChangeInt repeated, final ChangeInt ammunition) {
+            this.weaponModule = weaponModule;
+            this.target = target;
+            this.repeated = repeated;
+            this.ammunition = ammunition;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onWeaponFired( weaponModule, target, repeated, ammunition );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onGameStarted(IGame)
+     */
+    static class GameStarted extends GameEvent {
+
+        private final IGame game;
+
+        GameStarted(final IGame game) {
+            this.game = game;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onGameStarted( game );
+        }
+    }
+
+
+    /**
+     * @see GameListener#onGameEnded(IGame, PublicVictoryConditionType, IPlayer)
+     */
+    static class GameEnded extends GameEvent {
+
+        private final IGame                      game;
+        private final PublicVictoryConditionType victoryCondition;
+        @Nullable
+        private final IPlayer                    victor;
+
+        GameEnded(final IGame game, final PublicVictoryConditionType victoryCondition, @Nullable final IPlayer victor) {
+            this.game = game;
+            this.victoryCondition = victoryCondition;
+            this.victor = victor;
+        }
+
+        @Override
+        public void accept(final GameListener gameListener) {
+            gameListener.onGameEnded( game, victoryCondition, victor );
+        }
+    }
+}
@@ -7,6 +7,8 @@ import java.util.*;
 import com.lyndir.lhunath.opal.system.logging.Logger;
 import com.lyndir.lhunath.opal.system.util.*;
 import com.lyndir.omicron.api.util.Maybe;
+import com.lyndir.omicron.api.view.GameObjectInfo;
+import com.lyndir.omicron.api.view.ModuleInfo;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -112,9 +114,18 @@ public class GameObject extends MetaObject implements IGameObject {
         return Maybe.of( location );
     }
 
+    /**
+     * @return The tile this object is on, regardless of whether the current player can observe it.
+     */
+    Tile getLocationUnchecked() {
+        return location;
+    }
+
     void setLocation(@Nonnull final Tile location) {
         Change.From<ITile> locationChange = Change.<ITile>from( this.location );
         this.location = location;
+        if (owner != null)
+            owner.getController().updateVisibility( this );
 
         getGame().getController().fireIfObservable( location ) //
                 .onUnitMoved( this, locationChange.to( this.location ) );
@@ -131,6 +142,33 @@ public class GameObject extends MetaObject implements IGameObject {
         return modules;
     }
 
+    /**
+     * @return true if this object has at least one module of the given type, regardless of whether the current player can observe it.
+     */
+    boolean hasModule(final PublicModuleType<?> moduleType) {
+        return modules.containsKey( moduleType );
+    }
+
+    /**
+     * @return This object's first base module, regardless of whether the current player can observe it.
+     */
+    @Nullable
+    BaseModule getBaseModule() {
+        ImmutableList<Module> baseModules = modules.get( ModuleType.BASE );
+        return baseModules.isEmpty()? null: (BaseModule) baseModules.get( 0 );
+    }
+
+    /**
+     * @return A snapshot of this object and its modules, regardless of whether the current player can observe it.
+     */
+    GameObjectInfo getInfo() {
+        ImmutableList.Builder<ModuleInfo> moduleInfos = ImmutableList.builder();
+        for (final Module module : modules.values())
+            moduleInfos.add( module.getInfo() );
+
+        return new GameObjectInfo( this, unitType, owner, location, moduleInfos.build() );
+    }
+
     @Nullable
     static GameObject castN(@Nullable final IGameObject gameObject) {
         return (GameObject) gameObject;
@@ -1,5 +1,6 @@
 package com.lyndir.omicron.api;
 
+import com.google.common.base.Preconditions;
 import com.lyndir.lhunath.opal.system.logging.Logger;
 import com.lyndir.lhunath.opal.system.util.*;
 import com.lyndir.omicron.api.util.Maybe;
@@ -57,6 +58,11 @@ public class GameObjectController<O extends GameObject> extends MetaObject imple
             // Object already at location.
             return;
 
+        // Refuse an occupied location before leaving the old one, so the object is never left without a location.
+        GameObject currentContents = location.getLevel().getContents( location.getIndex() );
+        Preconditions.checkState( currentContents == null || currentContents.equals( getGameObject() ),
+                                  "Cannot put object on tile that is not empty: %s", location );
+
         oldLocation.get().setContents( null );
         getGameObject().setLocation( location );
         location.setContents( getGameObject() );
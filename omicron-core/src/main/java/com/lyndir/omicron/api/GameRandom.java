@@ -0,0 +1,67 @@
+package com.lyndir.omicron.api;
+
+import java.util.SplittableRandom;
+
+
+/**
+ * The random number generators of a game, all derived from the game's seed.
+ *
+ * Each aspect of the game draws from its own stream, so that drawing for one aspect does not change the numbers drawn for another and
+ * games in the same JVM never share generator state.  A game replayed from the same seed with the same moves draws the same numbers.
+ *
+ * @author lhunath, 2014-09-13
+ */
+class GameRandom {
+
+    private final long               seed;
+    private final SplittableRandom[] streams = new SplittableRandom[Stream.values().length];
+
+    GameRandom(final long seed) {
+        this.seed = seed;
+
+        SplittableRandom root = new SplittableRandom( seed );
+        for (final Stream stream : Stream.values())
+            streams[stream.ordinal()] = root.split();
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param bound The upper bound (exclusive).  Must be positive.
+     *
+     * @return A random number between zero (inclusive) and the bound (exclusive), drawn from the given stream.
+     */
+    int nextInt(final Stream stream, final int bound) {
+        SplittableRandom random = streams[stream.ordinal()];
+        synchronized (random) {
+            return random.nextInt( bound );
+        }
+    }
+
+    /**
+     * @return A new generator that is split off the given stream, for work that draws many numbers or draws from other threads.
+     */
+    SplittableRandom split(final Stream stream) {
+        SplittableRandom random = streams[stream.ordinal()];
+        synchronized (random) {
+            return random.split();
+        }
+    }
+
+    enum Stream {
+        /**
+         * The generation of the game's world: its resources and the placement of the players' units.
+         */
+        WORLD,
+        /**
+         * The variance in the outcome of combat.
+         */
+        COMBAT,
+        /**
+         * The names picked for players.
+         */
+        NAMING
+    }
+}
@@ -0,0 +1,163 @@
+package com.lyndir.omicron.api;
+
+import com.lyndir.omicron.api.util.IndexPath;
+import com.lyndir.omicron.api.util.PathUtils;
+import com.lyndir.omicron.api.util.RadiusOffsets;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+import javax.annotation.Nullable;
+
+
+/**
+ * A standing order for a unit to go to a tile, over as many turns as it takes.
+ *
+ * The order keeps its route through the level's {@link ClusterGraph} and the tiles of the leg of the route the unit is on.  Each turn,
+ * the unit walks on along these tiles as far as its speed allows.  When a tile ahead is blocked, only the rest of the current leg is
+ * planned again; the legs after it are kept.  Only if the end of the leg cannot be reached is the whole route to the target planned
+ * again.  While there is no way to the target, the order waits for one to open up.
+ *
+ * Routes and legs are planned against the view of the unit's owner (see {@link Level#getClusterGraph(Player)}): tiles the owner cannot
+ * observe are assumed to be free.  Whether a tile can really be stepped onto is only checked when the unit is about to step onto it.
+ *
+ * @author lhunath, 2014-09-19
+ */
+class GoToOrder {
+
+    private final Level        level;
+    private final ClusterGraph graph;
+    private final int          targetIndex;
+
+    @Nullable
+    private ClusterGraph.Route route;
+    // The leg of the route the unit is on, the tiles of that leg (null if they could not be refined) and the unit's position on them.
+    private int                leg;
+    @Nullable
+    private IndexPath          legTiles;
+    private int                step;
+
+    private GoToOrder(final Level level, @Nullable final Player owner, final int targetIndex) {
+        this.level = level;
+        this.targetIndex = targetIndex;
+        graph = level.getClusterGraph( owner );
+    }
+
+    /**
+     * Plan an order to go from a tile to a tile of the same level.  If there is no way from the one tile to the other yet, the order is
+     * planned again once the unit walks.
+     *
+     * @param owner The player that owns the unit, whose view of the level to plan against.
+     */
+    static GoToOrder plan(final Level level, @Nullable final Player owner, final int rootIndex, final int targetIndex) {
+        GoToOrder order = new GoToOrder( level, owner, targetIndex );
+        order.route( rootIndex );
+
+        return order;
+    }
+
+    Tile getTarget() {
+        return level.tileAt( targetIndex );
+    }
+
+    /**
+     * Walk on along the route.  The order moves on to the end of the walk, so the walk should be executed.
+     *
+     * @param fromIndex The index of the tile the unit is on.  If the unit left the route, a new route is planned from here.
+     * @param passable  The predicate that determines whether the unit can step onto the next tile, by its index.
+     * @param maxSteps  The maximum amount of steps the unit can take.
+     *
+     * @return The indexes of the tiles to walk, starting at the tile the unit is on.  Only that tile if there is no way on for now.
+     */
+    int[] walk(final int fromIndex, final IntPredicate passable, final int maxSteps) {
+        if ((route == null || fromIndex != getPosition()) && !route( fromIndex ))
+            // Wait for a way to the target to open up.
+            return new int[]{ fromIndex };
+
+        int[] tiles = new int[16];
+        int length = 0;
+        tiles[length++] = fromIndex;
+
+        boolean rerouted = false;
+        while (length - 1 < maxSteps && getPosition() != targetIndex) {
+            // Move on to the next leg once we're at the end of this one.
+            if (legTiles != null && step == legTiles.getLength() - 1) {
+                legTiles = route.getLeg( ++leg ).orElse( null );
+                step = 0;
+            }
+
+            int nextIndex = legTiles == null? -1: legTiles.getIndex( step + 1 );
+            if (nextIndex >= 0 && graph.isPassable( nextIndex ) && !passable.test( nextIndex ))
+                // As far as the owner can tell, the next tile is free, but the unit can't step onto it yet: wait until it can.
+                break;
+            if (nextIndex < 0 || !passable.test( nextIndex )) {
+                // The way ahead is blocked: plan the rest of this leg again, or failing that, the whole route.
+                if (repair())
+                    continue;
+                if (rerouted || !route( getPosition() ))
+                    // Wait for the way to clear up.
+                    break;
+
+                rerouted = true;
+                continue;
+            }
+
+            if (length == tiles.length)
+                tiles = Arrays.copyOf( tiles, length * 2 );
+            tiles[length++] = nextIndex;
+            ++step;
+        }
+
+        return Arrays.copyOf( tiles, length );
+    }
+
+    /**
+     * @return The index of the tile on the route that the order is at.
+     */
+    private int getPosition() {
+        return legTiles == null? route.getWaypoints().getIndex( leg ): legTiles.getIndex( step );
+    }
+
+    /**
+     * Plan a new route from the given tile, replacing the current route.
+     *
+     * @return false if there is no way from the tile to the target.
+     */
+    private boolean route(final int fromIndex) {
+        Optional<ClusterGraph.Route> newRoute = graph.findRoute( fromIndex, targetIndex, Integer.MAX_VALUE );
+        if (!newRoute.isPresent())
+            return false;
+
+        route = newRoute.get();
+        leg = 0;
+        legTiles = route.getLegCount() == 0? null: route.getLeg( 0 ).orElse( null );
+        step = 0;
+        return true;
+    }
+
+    /**
+     * Plan the rest of the current leg again, from the tile the order is at to the end of the leg, over the tiles the owner does not
+     * observe to be occupied.
+     *
+     * @return false if the end of the leg cannot be reached.
+     */
+    private boolean repair() {
+        int fromIndex = getPosition(), toIndex = route.getWaypoints().getIndex( leg + 1 );
+        int width = level.getSize().getWidth(), toX = toIndex % width, toY = toIndex / width;
+        int distance = RadiusOffsets.distance( toX - fromIndex % width, toY - fromIndex / width );
+
+        Optional<IndexPath> repairedTiles = PathUtils.findShortest( level.getTileCount(), fromIndex, toIndex, (index, action) -> {
+            int x = index % width, y = index / width;
+            for (int side = 0; side < Level.SIDES.length; ++side) {
+                int neighbour = level.neighbourIndex( index, x, y, side );
+                if (neighbour >= 0 && graph.isPassable( neighbour ))
+                    action.accept( neighbour, 1 );
+            }
+        }, index -> RadiusOffsets.distance( toX - index % width, toY - index / width ), distance + 2 * ILevel.CHUNK_SIZE );
+        if (!repairedTiles.isPresent())
+            return false;
+
+        legTiles = repairedTiles.get();
+        step = 0;
+        return true;
+    }
+}
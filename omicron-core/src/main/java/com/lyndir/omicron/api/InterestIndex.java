@@ -0,0 +1,79 @@
+package com.lyndir.omicron.api;
+
+import com.google.common.collect.ImmutableMap;
+import com.lyndir.lhunath.opal.math.Size;
+import com.lyndir.lhunath.opal.math.Vec2;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * For every position of a game, the players that can currently observe it.
+ *
+ * The index is maintained by the players' {@link Visibility}: whenever a position enters or leaves a player's view, the player's bit for
+ * that position is flipped.  It lets the game find the players interested in an event at some position without asking each player
+ * whether it can observe it.
+ *
+ * @author lhunath, 2014-09-16
+ */
+class InterestIndex {
+
+    private final int                           width;
+    private final int                           height;
+    private final int                           wordsPerPosition;
+    private final ImmutableMap<Player, Integer> playerIndexes;
+    private final AtomicLongArray               observers;
+
+    InterestIndex(final Size size, final Iterable<Player> players) {
+        width = size.getWidth();
+        height = size.getHeight();
+
+        ImmutableMap.Builder<Player, Integer> playerIndexesBuilder = ImmutableMap.builder();
+        int playerIndex = 0;
+        for (final Player player : players)
+            playerIndexesBuilder.put( player, playerIndex++ );
+        playerIndexes = playerIndexesBuilder.build();
+
+        wordsPerPosition = Math.max( 1, (playerIndexes.size() + Long.SIZE - 1) / Long.SIZE );
+        observers = new AtomicLongArray( width * height * wordsPerPosition );
+    }
+
+    /**
+     * @return The position's index, or -1 if the position is not on the game's levels.
+     */
+    int positionIndex(final Vec2 position) {
+        int x = position.getX(), y = position.getY();
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return -1;
+
+        return y * width + x;
+    }
+
+    /**
+     * Record that the given player started observing the position with the given index.
+     */
+    void addObserver(final int positionIndex, final Player player) {
+        int playerIndex = playerIndexes.get( player );
+        long bit = 1L << playerIndex;
+        observers.getAndAccumulate( positionIndex * wordsPerPosition + playerIndex / Long.SIZE, bit, (word, mask) -> word | mask );
+    }
+
+    /**
+     * Record that the given player stopped observing the position with the given index.
+     */
+    void removeObserver(final int positionIndex, final Player player) {
+        int playerIndex = playerIndexes.get( player );
+        long bit = 1L << playerIndex;
+        observers.getAndAccumulate( positionIndex * wordsPerPosition + playerIndex / Long.SIZE, bit, (word, mask) -> word & ~mask );
+    }
+
+    /**
+     * @return true if the given player currently observes the position with the given index.
+     */
+    boolean isObserving(final int positionIndex, final IPlayer player) {
+        Integer playerIndex = playerIndexes.get( player );
+        if (positionIndex < 0 || playerIndex == null)
+            return false;
+
+        return (observers.get( positionIndex * wordsPerPosition + playerIndex / Long.SIZE ) & 1L << playerIndex) != 0;
+    }
+}
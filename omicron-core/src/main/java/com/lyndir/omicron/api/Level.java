@@ -1,38 +1,118 @@
 package com.lyndir.omicron.api;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.lyndir.lhunath.opal.math.Size;
-import com.lyndir.lhunath.opal.math.Vec2;
+import com.lyndir.lhunath.opal.math.*;
 import com.lyndir.lhunath.opal.system.util.*;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 import javax.annotation.Nullable;
 
 
 /**
+ * A level's tiles are flyweights: the contents and resources of the tiles are stored in the level, indexed by tile index.  A
+ * {@link IGame.LevelDensity#DENSE} level creates all its tiles up-front, a {@link IGame.LevelDensity#SPARSE} level creates them when
+ * they're requested.  Two tile instances at the same position of the same level are always equal.
+ *
  * <i>10 07, 2012</i>
  *
  * @author lhunath
  */
 public class Level extends MetaObject implements ILevel {
 
+    static final         Side[] SIDES   = Side.values();
+    private static final int[]  SIDE_DX = new int[SIDES.length];
+    private static final int[]  SIDE_DY = new int[SIDES.length];
+
+    static {
+        for (int side = 0; side < SIDES.length; ++side) {
+            SIDE_DX[side] = SIDES[side].getDelta().getX();
+            SIDE_DY[side] = SIDES[side].getDelta().getY();
+        }
+    }
+
+    @ObjectMeta(ignoreFor = ObjectMeta.For.toString)
+    private final Size               size;
+    private final LevelType          type;
     @ObjectMeta(ignoreFor = ObjectMeta.For.toString)
-    private final Size      size;
-    private final LevelType type;
+    private final IGame.LevelDensity density;
+
+    @ObjectMeta(ignoreFor = ObjectMeta.For.all)
+    @Nullable
+    private final Tile[]                             tiles;
+    @ObjectMeta(ignoreFor = ObjectMeta.For.all)
+    @Nullable
+    private final GameObject[]                       contents;
+    @ObjectMeta(ignoreFor = ObjectMeta.For.all)
+    @Nullable
+    private final Map<Integer, GameObject>           sparseContents;
+    @ObjectMeta(ignoreFor = ObjectMeta.For.all)
+    private final ResourceLayer                      resources;
+    @ObjectMeta(ignoreFor = ObjectMeta.For.all)
+    private final ObjectIndex                        objects;
+    @ObjectMeta(ignoreFor = ObjectMeta.For.all)
+    private final AtomicLong                         version         = new AtomicLong();
+    @ObjectMeta(ignoreFor = ObjectMeta.For.all)
+    private final AtomicLongArray                    chunkVersions;
+    @ObjectMeta(ignoreFor = ObjectMeta.For.all)
+    private final int[]                              sideIndexDeltas = new int[SIDES.length];
+    @ObjectMeta(ignoreFor = ObjectMeta.For.all)
+    private final Supplier<ImmutableMap<Vec2, Tile>> tilesByPosition = Suppliers.memoize( () -> {
+        ImmutableMap.Builder<Vec2, Tile> tileMapBuilder = ImmutableMap.builder();
+        for (int index = 0; index < getTileCount(); ++index) {
+            Tile tile = tileAt( index );
+            tileMapBuilder.put( tile.getPosition(), tile );
+        }
 
+        return tileMapBuilder.build();
+    } );
+    @ObjectMeta(ignoreFor = ObjectMeta.For.all)
+    private final Supplier<ClusterGraph>             clusterGraph    = Suppliers.memoize( () -> new ClusterGraph( this, null ) );
     @ObjectMeta(ignoreFor = ObjectMeta.For.all)
-    private final ImmutableMap<Vec2, Tile> tileMap;
+    private final Map<Player, ClusterGraph>          playerGraphs    = new ConcurrentHashMap<>();
 
-    Level(final Size size, final LevelType type) {
+    Level(final Size size, final LevelType type, final IGame.LevelDensity density) {
         this.size = size;
         this.type = type;
+        this.density = density;
 
-        ImmutableMap.Builder<Vec2, Tile> tileMapBuilder = ImmutableMap.builder();
-        for (int x = 0; x < size.getWidth(); ++x)
-            for (int y = 0; y < size.getHeight(); ++y) {
-                Vec2 coordinate = Vec2.create( x, y );
-                tileMapBuilder.put( coordinate, new Tile( coordinate, this ) );
-            }
-        tileMap = tileMapBuilder.build();
+        int tileCount = size.getWidth() * size.getHeight();
+        switch (density) {
+            case DENSE:
+                tiles = new Tile[tileCount];
+                for (int index = 0; index < tileCount; ++index)
+                    tiles[index] = newTile( index );
+                contents = new GameObject[tileCount];
+                sparseContents = null;
+                break;
+
+            case SPARSE:
+                tiles = null;
+                contents = null;
+                sparseContents = new ConcurrentHashMap<>();
+                break;
+
+            default:
+                throw new IllegalArgumentException( "Unsupported level density: " + density );
+        }
+        resources = new ResourceLayer( tileCount );
+        objects = new ObjectIndex( size.getWidth(), size.getHeight() );
+        chunkVersions = new AtomicLongArray( getChunkCount() );
+
+        // The index of a neighbour is the tile's index offset by a fixed amount per side, as long as the neighbour is in bounds.
+        for (int side = 0; side < SIDES.length; ++side)
+            sideIndexDeltas[side] = SIDE_DY[side] * size.getWidth() + SIDE_DX[side];
+    }
+
+    private Tile newTile(final int index) {
+        int width = size.getWidth();
+        return new Tile( Vec2.create( index % width, index / width ), index, this );
     }
 
     @Override
@@ -45,9 +125,236 @@ public class Level extends MetaObject implements ILevel {
         return type;
     }
 
+    public IGame.LevelDensity getDensity() {
+        return density;
+    }
+
+    /**
+     * The map is only built when it is first requested.  Prefer {@link #getTile(int, int)} or {@link #tileAt(int)} for lookups.
+     */
     @Override
     public ImmutableMap<Vec2, ? extends ITile> getTilesByPosition() {
-        return tileMap;
+        return tilesByPosition.get();
+    }
+
+    /**
+     * @return The amount of tiles in this level.
+     */
+    int getTileCount() {
+        return size.getWidth() * size.getHeight();
+    }
+
+    /**
+     * @return The resource quantities available on the tiles of this level.
+     */
+    ResourceLayer getResources() {
+        return resources;
+    }
+
+    /**
+     * @return The object on the tile with the given index, if any.
+     */
+    @Nullable
+    GameObject getContents(final int index) {
+        if (contents != null)
+            return contents[index];
+
+        assert sparseContents != null;
+        return sparseContents.get( index );
+    }
+
+    /**
+     * Place an object on the tile with the given index.
+     *
+     * @return The object that was on the tile before, if any.
+     */
+    @Nullable
+    GameObject setContents(final int index, @Nullable final GameObject newContents) {
+        GameObject oldContents;
+        if (contents != null) {
+            oldContents = contents[index];
+            contents[index] = newContents;
+        }
+        else {
+            assert sparseContents != null;
+            oldContents = newContents == null? sparseContents.remove( index ): sparseContents.put( index, newContents );
+        }
+
+        if (oldContents != null)
+            objects.remove( index, oldContents );
+        if (newContents != null)
+            objects.add( index, newContents );
+        markChanged( index );
+
+        return oldContents;
+    }
+
+    /**
+     * Set the quantity of the given resource type available on the tile with the given index.
+     *
+     * @return The quantity that was available before the change.
+     */
+    int setResourceQuantity(final ResourceType resourceType, final int index, final int quantity) {
+        int oldQuantity = resources.setQuantity( resourceType, index, quantity );
+        markChanged( index );
+
+        return oldQuantity;
+    }
+
+    /**
+     * Move this level to a new version and record it as the version of the chunk that holds the tile with the given index.
+     *
+     * The chunk is stamped before the level's version moves on, so a reader that sees the new version of the level also sees the chunk
+     * that changed in {@link #changedChunks(long)}.
+     */
+    private void markChanged(final int index) {
+        synchronized (chunkVersions) {
+            long newVersion = version.get() + 1;
+            chunkVersions.set( chunkIndex( index ), newVersion );
+            version.set( newVersion );
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * @return The version of this level when a tile of the given chunk last changed, or {@code 0} if none of its tiles changed yet.
+     */
+    long getChunkVersion(final int chunk) {
+        return chunkVersions.get( chunk );
+    }
+
+    /**
+     * @return The graph of clusters for finding long paths through this level against the actual occupancy of its tiles, which is kept
+     * up to date as its tiles change.
+     */
+    ClusterGraph getClusterGraph() {
+        return clusterGraph.get();
+    }
+
+    /**
+     * @param owner The player whose view of the level to find paths against, or {@code null} to use the actual occupancy of its tiles.
+     *
+     * @return The graph of clusters for finding long paths through this level as the player sees it, which is kept up to date as its
+     * tiles and the player's view change.
+     */
+    ClusterGraph getClusterGraph(@Nullable final Player owner) {
+        return owner == null? getClusterGraph(): playerGraphs.computeIfAbsent( owner, player -> new ClusterGraph( this, player ) );
+    }
+
+    @Override
+    public IntStream changedChunks(final long sinceVersion) {
+        return IntStream.range( 0, chunkVersions.length() ).filter( chunk -> chunkVersions.get( chunk ) > sinceVersion );
+    }
+
+    /**
+     * Find the objects in this level at most the given distance away from a tile.
+     *
+     * @param index      The index of the tile at the center of the area.
+     * @param radius     The maximum distance from the center tile of the objects to find.
+     * @param owner      Only find objects owned by this player, or {@code null} to find objects regardless of their owner.
+     * @param moduleType Only find objects with a module of this type, or {@code null} to find objects regardless of their modules.
+     *
+     * @return The objects in the area, regardless of whether the current player can observe them.
+     */
+    ImmutableList<GameObject> getObjectsInRadius(final int index, final int radius, @Nullable final Player owner,
+                                                 @Nullable final PublicModuleType<?> moduleType) {
+        return objects.inRadius( index, radius, owner, moduleType );
+    }
+
+    /**
+     * Find the objects in this level within a rectangle of tiles.  The bounds are inclusive.
+     *
+     * @param owner      Only find objects owned by this player, or {@code null} to find objects regardless of their owner.
+     * @param moduleType Only find objects with a module of this type, or {@code null} to find objects regardless of their modules.
+     *
+     * @return The objects in the area, regardless of whether the current player can observe them.
+     */
+    ImmutableList<GameObject> getObjectsInRect(final int minX, final int minY, final int maxX, final int maxY, @Nullable final Player owner,
+                                               @Nullable final PublicModuleType<?> moduleType) {
+        return objects.inRect( minX, minY, maxX, maxY, owner, moduleType );
+    }
+
+    @Override
+    public Optional<Tile> getTile(final Vec2 position) {
+        return getTile( position.getX(), position.getY() );
+    }
+
+    @Override
+    public Optional<Tile> getTile(final int x, final int y) {
+        int index = tileIndex( x, y );
+        if (index < 0)
+            return Optional.empty();
+
+        return Optional.of( tileAt( index ) );
+    }
+
+    @Override
+    public Tile tileAt(final int index) {
+        if (tiles != null)
+            return tiles[index];
+
+        if (index < 0 || index >= getTileCount())
+            throw new IndexOutOfBoundsException( "No tile at index: " + index );
+
+        return newTile( index );
+    }
+
+    @Override
+    public int tileIndex(final int x, final int y) {
+        if (x < 0 || y < 0 || x >= size.getWidth() || y >= size.getHeight())
+            return -1;
+
+        return y * size.getWidth() + x;
+    }
+
+    @Override
+    public int neighbourIndex(final int index, final Side side) {
+        return neighbourIndex( index, side.ordinal() );
+    }
+
+    @Override
+    public int neighbourIndex(final int index, final int x, final int y, final Side side) {
+        return neighbourIndex( index, x, y, side.ordinal() );
+    }
+
+    /**
+     * @param side The ordinal of the {@link Side} of the tile to find the neighbour tile at.
+     *
+     * @see #neighbourIndex(int, Side)
+     */
+    int neighbourIndex(final int index, final int side) {
+        int width = size.getWidth();
+        return neighbourIndex( index, index % width, index / width, side );
+    }
+
+    /**
+     * Find a neighbour of a tile whose position is known: this is a bounds check of the neighbour's position and an offset of the tile's
+     * index.
+     *
+     * @param side The ordinal of the {@link Side} of the tile to find the neighbour tile at.
+     *
+     * @see #neighbourIndex(int, int, int, Side)
+     */
+    int neighbourIndex(final int index, final int x, final int y, final int side) {
+        int neighbourX = x + SIDE_DX[side], neighbourY = y + SIDE_DY[side];
+        if (neighbourX < 0 || neighbourY < 0 || neighbourX >= size.getWidth() || neighbourY >= size.getHeight())
+            return -1;
+
+        return index + sideIndexDeltas[side];
+    }
+
+    @Override
+    public void forEachNeighbour(final int index, final IntConsumer action) {
+        int width = size.getWidth(), x = index % width, y = index / width;
+        for (int side = 0; side < SIDES.length; ++side) {
+            int neighbourIndex = neighbourIndex( index, x, y, side );
+            if (neighbourIndex >= 0)
+                action.accept( neighbourIndex );
+        }
     }
 
     @Override
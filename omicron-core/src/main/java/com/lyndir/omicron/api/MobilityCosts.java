@@ -0,0 +1,101 @@
+package com.lyndir.omicron.api;
+
+import static com.lyndir.lhunath.opal.system.util.ObjectUtils.*;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * The speed a kind of mobility module spends to move around in each level and to level between them, by level ordinal.
+ *
+ * The tables are built once for each set of costs and shared by all modules with those costs, such as those of all units of one type.  A
+ * cost of {@link Double#MAX_VALUE} means the module cannot make the move.
+ *
+ * @author lhunath, 2014-09-19
+ */
+class MobilityCosts {
+
+    private static final LevelType[]                                                levelTypes = LevelType.values();
+    private static final ConcurrentMap<List<Map<LevelType, Double>>, MobilityCosts> costs      = new ConcurrentHashMap<>();
+
+    private final double[]   moving;
+    private final double[][] leveling;
+    private final double     minMoving;
+
+    private MobilityCosts(final Map<LevelType, Double> movementCost, final Map<LevelType, Double> levelingCost) {
+        moving = new double[levelTypes.length];
+        double cheapestMoving = Double.MAX_VALUE;
+        for (final LevelType levelType : levelTypes) {
+            moving[levelType.ordinal()] = ifNotNullElse( movementCost.get( levelType ), Double.MAX_VALUE );
+            cheapestMoving = Math.min( cheapestMoving, moving[levelType.ordinal()] );
+        }
+        minMoving = cheapestMoving;
+
+        // Leveling between two levels crosses each level in between: it costs the leveling cost of the lower level of each crossing.
+        leveling = new double[levelTypes.length][levelTypes.length];
+        for (int from = 0; from < levelTypes.length; ++from)
+            for (int to = 0; to < levelTypes.length; ++to) {
+                double cost = 0;
+                for (int crossing = Math.min( from, to ); crossing < Math.max( from, to ); ++crossing) {
+                    Double crossingCost = levelingCost.get( levelTypes[crossing] );
+                    if (crossingCost == null) {
+                        // Cannot level across this crossing.
+                        cost = Double.MAX_VALUE;
+                        break;
+                    }
+
+                    cost += crossingCost;
+                }
+                leveling[from][to] = cost;
+            }
+    }
+
+    /**
+     * @return The costs for modules with the given costs for moving in and leveling from each level.
+     */
+    static MobilityCosts of(final Map<LevelType, Double> movementCost, final Map<LevelType, Double> levelingCost) {
+        return costs.computeIfAbsent( ImmutableList.<Map<LevelType, Double>>of( ImmutableMap.copyOf( movementCost ),
+                                                                               ImmutableMap.copyOf( levelingCost ) ),
+                                      key -> new MobilityCosts( key.get( 0 ), key.get( 1 ) ) );
+    }
+
+    /**
+     * @return The cost of stepping from a tile to a neighbouring tile of the level with the given ordinal.
+     */
+    double forMoving(final int levelOrdinal) {
+        return moving[levelOrdinal];
+    }
+
+    /**
+     * @return The cost of leveling from a tile of the level with the given ordinal to the tile at the same position of another level.
+     */
+    double forLeveling(final int fromLevelOrdinal, final int toLevelOrdinal) {
+        return leveling[fromLevelOrdinal][toLevelOrdinal];
+    }
+
+    /**
+     * @return The lowest cost of any step within a level.
+     */
+    double getMinMoving() {
+        return minMoving;
+    }
+
+    /**
+     * @return The lowest cost of leaving the level with the given ordinal and coming back to it.  No path between two tiles of the level
+     * that passes through another level costs less than this.
+     */
+    double forLevelingRoundTrip(final int levelOrdinal) {
+        double cost = Double.MAX_VALUE;
+        if (levelOrdinal > 0)
+            cost = Math.min( cost, 2 * leveling[levelOrdinal][levelOrdinal - 1] );
+        if (levelOrdinal < levelTypes.length - 1)
+            cost = Math.min( cost, 2 * leveling[levelOrdinal][levelOrdinal + 1] );
+
+        return cost;
+    }
+}
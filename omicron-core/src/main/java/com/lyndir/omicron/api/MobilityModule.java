@@ -4,29 +4,42 @@ import static com.lyndir.lhunath.opal.system.util.ObjectUtils.*;
 import static com.lyndir.omicron.api.error.ExceptionUtils.*;
 import static com.lyndir.omicron.api.util.PathUtils.*;
 
+import com.lyndir.lhunath.opal.math.Side;
 import com.lyndir.lhunath.opal.system.util.*;
 import com.lyndir.omicron.api.error.*;
+import com.lyndir.omicron.api.util.IndexPath;
+import com.lyndir.omicron.api.util.IntIntToDoubleFunction;
+import com.lyndir.omicron.api.util.Maybool;
+import com.lyndir.omicron.api.util.RadiusOffsets;
+import com.lyndir.omicron.api.util.Reachability;
+import com.lyndir.omicron.api.view.ModuleInfo;
 import java.util.*;
-import java.util.stream.Stream;
+import java.util.function.IntToDoubleFunction;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 
 public class MobilityModule extends Module implements IMobilityModule, IMobilityModuleController {
 
-    private final int movementSpeed;
-    private final Map<LevelType, Double> movementCost = Collections.synchronizedMap( new EnumMap<>( LevelType.class ) );
-    private final Map<LevelType, Double> levelingCost = Collections.synchronizedMap( new EnumMap<>( LevelType.class ) );
+    private final int           movementSpeed;
+    private final MobilityCosts costs;
 
     private double remainingSpeed;
 
+    // The last result of reachableTiles and the versions of its level and of our owner's view when it was found.
+    @Nullable
+    private Reachability reachability;
+    private long         reachabilityVersion;
+    private long         reachabilityVisibilityVersion;
+    @Nullable
+    private GoToOrder    goToOrder;
+
     protected MobilityModule(final ImmutableResourceCost resourceCost, final int movementSpeed, final Map<LevelType, Double> movementCost,
                              final Map<LevelType, Double> levelingCost) {
         super( resourceCost );
 
         this.movementSpeed = movementSpeed;
-        this.movementCost.putAll( movementCost );
-        this.levelingCost.putAll( levelingCost );
+        costs = MobilityCosts.of( movementCost, levelingCost );
     }
 
     static Builder0 createWithStandardResourceCost() {
@@ -64,59 +77,15 @@ public class MobilityModule extends Module implements IMobilityModule, IMobility
             throws NotAuthenticatedException, NotObservableException {
         assertObservable();
 
-        return ifNotNullElse( movementCost.get( levelType ), Double.MAX_VALUE );
+        return costs.forMoving( levelType.ordinal() );
     }
 
     @Override
     public double costForLevelingToLevel(final LevelType levelType)
             throws NotAuthenticatedException, NotObservableException {
         assertObservable();
-        Tile location = getGameObject().getLocation().get();
-
-        // Level up until we reach the target level.
-        double cost = 0;
-        LevelType currentLevel = location.getLevel().getType();
-        if (levelType == currentLevel)
-            return 0;
-        while (true) {
-            Optional<LevelType> newLevel = currentLevel.up();
-            if (!newLevel.isPresent())
-                break;
-
-            Double currentLevelCost = levelingCost.get( EnumUtils.min( currentLevel, newLevel.get() ) );
-            if (currentLevelCost == null)
-                // Cannot level to this level.
-                return Double.MAX_VALUE;
-
-            currentLevel = newLevel.get();
-            cost += currentLevelCost;
-
-            if (currentLevel == levelType)
-                return cost;
-        }
-
-        // Level down until we reach the target level.
-        cost = 0;
-        currentLevel = location.getLevel().getType();
-        while (true) {
-            Optional<LevelType> newLevel = currentLevel.down();
-            if (!newLevel.isPresent())
-                break;
-
-            Double currentLevelCost = levelingCost.get( EnumUtils.min( currentLevel, newLevel.get() ) );
-            if (currentLevelCost == null)
-                // Cannot level to this level.
-                return Double.MAX_VALUE;
 
-            currentLevel = newLevel.get();
-            cost += currentLevelCost;
-
-            if (currentLevel == levelType)
-                return cost;
-        }
-
-        // Unreachable code.
-        throw new IllegalArgumentException( "Unsupported level type: " + levelType );
+        return costs.forLeveling( getGameObject().getLocation().get().getLevel().getType().ordinal(), levelType.ordinal() );
     }
 
     /**
@@ -144,38 +113,253 @@ public class MobilityModule extends Module implements IMobilityModule, IMobility
     }
 
     /**
-     * Move the unit to an adjacent tile.
+     * Move the unit to a tile of any level, along the cheapest path through all levels.
      *
-     * @param target The side of the adjacent tile relative to the current.
+     * @param target The tile to move to.
      */
     @Override
     public Movement movement(final ITile target)
             throws NotAuthenticatedException, NotOwnedException, NotObservableException {
         assertOwned();
 
+        // Reuse the reachable tiles if they were found from here with the speed we have left and no detour through another level can be
+        // cheaper than the path they hold.
+        Tile currentLocation = getGameObject().getLocation().get();
+        Leveling noLeveling = Leveling.possible( this, currentLocation, 0 );
+        Reachability currentReachability = getCurrentReachability( currentLocation, remainingSpeed );
+        if (currentReachability != null && target.getLevel().equals( currentLocation.getLevel() )) {
+            Optional<Path<ITile>> path = currentReachability.pathTo( target.getIndex() );
+            if (path.isPresent() && path.get().getCost() <= costs.forLevelingRoundTrip( currentLocation.getLevel().getType().ordinal() ))
+                return Movement.planned( this, path.get().getCost(), noLeveling, path );
+        }
+
+        // Find the path!
+        Optional<Path<ITile>> path = findPath( currentLocation, Tile.cast( target ), remainingSpeed );
+        return Movement.planned( this, path.isPresent()? path.get().getCost(): 0, noLeveling, path );
+    }
+
+    /**
+     * A shortest path search through the tiles of all levels at once.  Within a level, a step to a neighbouring tile costs our movement
+     * cost for that level.  Between levels, a step to the tile at the same position of the level above or below costs our leveling cost
+     * for crossing to it.
+     *
+     * The search only covers the tiles we could reach within the maximum cost: a window around the root that reaches as many steps in
+     * each direction as the maximum cost pays for at our cheapest step, in each level.  Its scratch state is sized for that window, not
+     * for every tile of every level.
+     *
+     * @return The cheapest path from the root to the target over accessible tiles, or empty if there is none within the maximum cost.
+     */
+    private Optional<Path<ITile>> findPath(final Tile root, final Tile target, final double maxCost) {
+        LevelType[] levelTypes = LevelType.values();
+        Level[] levels = new Level[levelTypes.length];
+        for (final LevelType levelType : levelTypes)
+            levels[levelType.ordinal()] = getGameObject().getGame().getLevel( levelType );
+
+        // Any tile within the maximum cost is at most radius steps away, so it lies in the window of tiles that far around the root.
+        int width = root.getLevel().getSize().getWidth(), height = root.getLevel().getSize().getHeight();
+        int rootX = root.getIndex() % width, rootY = root.getIndex() / width;
+        int radius = Math.max( width, height );
+        if (costs.getMinMoving() > 0 && maxCost / costs.getMinMoving() < radius)
+            radius = (int) (maxCost / costs.getMinMoving());
+        int minX = Math.max( 0, rootX - radius ), minY = Math.max( 0, rootY - radius );
+        int windowWidth = Math.min( width - 1, rootX + radius ) - minX + 1;
+        int windowHeight = Math.min( height - 1, rootY + radius ) - minY + 1;
+        int targetX = target.getIndex() % width, targetY = target.getIndex() / width;
+        if (targetX < minX || targetY < minY || targetX >= minX + windowWidth || targetY >= minY + windowHeight)
+            return Optional.empty();
+
+        // The window's tiles of all levels are numbered one level after the other: a tile's node is its level's ordinal * windowTiles + its
+        // index in the window.
+        int windowTiles = windowWidth * windowHeight, targetOrdinal = target.getLevel().getType().ordinal();
+        EdgeVisitor edgeVisitor = (node, action) -> {
+            int ordinal = node / windowTiles, local = node % windowTiles, localX = local % windowWidth, localY = local / windowWidth;
+            int index = (minY + localY) * width + minX + localX;
+            double stepCost = costs.forMoving( ordinal );
+            if (stepCost < Double.MAX_VALUE)
+                for (final Side side : Level.SIDES) {
+                    int neighbourX = localX + side.getDelta().getX(), neighbourY = localY + side.getDelta().getY();
+                    if (neighbourX < 0 || neighbourY < 0 || neighbourX >= windowWidth || neighbourY >= windowHeight)
+                        continue;
+
+                    int neighbour = index + (neighbourY - localY) * width + neighbourX - localX;
+                    if (levels[ordinal].tileAt( neighbour ).isAccessible().isTrue())
+                        action.accept( ordinal * windowTiles + neighbourY * windowWidth + neighbourX, stepCost );
+                }
+
+            for (int adjacent = ordinal - 1; adjacent <= ordinal + 1; adjacent += 2) {
+                if (adjacent < 0 || adjacent >= levels.length)
+                    continue;
+
+                double levelingCost = costs.forLeveling( ordinal, adjacent );
+                if (levelingCost < Double.MAX_VALUE && levels[adjacent].tileAt( index ).isAccessible().isTrue())
+                    action.accept( adjacent * windowTiles + local, levelingCost );
+            }
+        };
+        // Any path must move the distance to the target in the cheapest level and level across every level between it and the target.
+        IntToDoubleFunction heuristic = node -> {
+            int ordinal = node / windowTiles, local = node % windowTiles;
+            int distance = RadiusOffsets.distance( targetX - minX - local % windowWidth, targetY - minY - local / windowWidth );
+            return (distance == 0? 0: distance * costs.getMinMoving()) + costs.forLeveling( ordinal, targetOrdinal );
+        };
+
+        int rootNode = root.getLevel().getType().ordinal() * windowTiles + (rootY - minY) * windowWidth + rootX - minX;
+        int targetNode = targetOrdinal * windowTiles + (targetY - minY) * windowWidth + targetX - minX;
+        Optional<IndexPath> nodes = findShortest( levels.length * windowTiles, rootNode, targetNode, edgeVisitor, heuristic, maxCost );
+        if (!nodes.isPresent())
+            return Optional.empty();
+
+        return Optional.of( toPath( nodes.get(), node -> {
+            int local = node % windowTiles;
+            return levels[node / windowTiles].tileAt( (minY + local / windowWidth) * width + minX + local % windowWidth );
+        }, (fromNode, toNode) -> {
+            int fromOrdinal = fromNode / windowTiles, toOrdinal = toNode / windowTiles;
+            return fromOrdinal == toOrdinal? costs.forMoving( fromOrdinal ): costs.forLeveling( fromOrdinal, toOrdinal );
+        } ) );
+    }
+
+    @Override
+    public Reachability reachableTiles()
+            throws NotAuthenticatedException, NotOwnedException, NotObservableException {
+        assertOwned();
+
+        Tile currentLocation = getGameObject().getLocation().get();
+        Reachability currentReachability = getCurrentReachability( currentLocation, remainingSpeed );
+        if (currentReachability != null)
+            return currentReachability;
+
+        Level level = currentLocation.getLevel();
+        long version = level.getVersion(), visibilityVersion = getVisibilityVersion();
+        currentReachability = reachable( level, currentLocation.getIndex(), costFunction( level ), remainingSpeed );
+        reachability = currentReachability;
+        reachabilityVersion = version;
+        reachabilityVisibilityVersion = visibilityVersion;
+
+        return currentReachability;
+    }
+
+    @Override
+    public boolean goTo(final ITile target)
+            throws NotAuthenticatedException, NotOwnedException, NotObservableException {
+        assertOwned();
+
+        // Only refuse the order for what we can observe: the way to a tile we cannot see may well be open.
+        Tile targetTile = Tile.cast( target );
+        if (isBlocked( targetTile )) {
+            goToOrder = null;
+            return false;
+        }
+
+        goToOrder = GoToOrder.plan( targetTile.getLevel(), getGameObject().getOwner().orElse( null ),
+                                    getGameObject().getLocation().get().getIndex(), targetTile.getIndex() );
+        return true;
+    }
+
+    @Override
+    public Optional<Tile> getGoToTarget()
+            throws NotAuthenticatedException, NotOwnedException, NotObservableException {
+        assertOwned();
+
+        GoToOrder order = goToOrder;
+        return order == null? Optional.empty(): Optional.of( order.getTarget() );
+    }
+
+    @Override
+    public void cancelGoTo()
+            throws NotAuthenticatedException, NotOwnedException, NotObservableException {
+        assertOwned();
+
+        goToOrder = null;
+    }
+
+    /**
+     * Walk on towards the target of our standing order, as far as our remaining speed allows.
+     */
+    private void followGoTo(final GoToOrder order) {
+        Tile target = order.getTarget();
         Leveling leveling = leveling( target.getLevel().getType() );
         if (!leveling.isPossible())
-            // Cannot move because we can't level to the target's level.
-            return Movement.impossible( this, leveling.getCost() );
+            // Wait until we can level to the target's level.
+            return;
+
+        if (isBlocked( target )) {
+            // The target can no longer be reached.
+            goToOrder = null;
+            return;
+        }
+
+        if (isBlocked( Tile.cast( leveling.getTarget() ) ) && !leveling.getTarget().equals( getGameObject().getLocation().get() ))
+            // Wait until the tile we level onto clears up.
+            return;
+
+        Level level = target.getLevel();
+        double stepCost = costForMovingInLevel( level.getType() );
+        int maxSteps = (int) Math.min( Integer.MAX_VALUE, (remainingSpeed - leveling.getCost()) / stepCost );
+        int[] walk = order.walk( getGameObject().getLocation().get().getIndex(), //
+                                 index -> level.tileAt( index ).isAccessible().isTrue(), maxSteps );
+        if (walk.length == 1 && leveling.getCost() == 0)
+            // Nowhere to go this turn.
+            return;
+
+        Path<ITile> path = toPath( level, walk, stepCost );
+        try {
+            Movement.possible( this, leveling.getCost() + path.getCost(), leveling, Optional.of( path ) ).execute();
+        }
+        catch (final ImpossibleException | InvalidatedException ignored) {
+            // The walk could not be executed, the order no longer knows where we are.
+            goToOrder = null;
+            return;
+        }
+
+        if (getGameObject().getLocation().get().equals( target ))
+            goToOrder = null;
+    }
+
+    /**
+     * @return true if we observe that the given tile is occupied.
+     */
+    private static boolean isBlocked(final Tile tile) {
+        Maybool accessible = tile.isAccessible();
+        return accessible.isKnown() && !accessible.isTrue();
+    }
 
-        // Initialize cost calculation.
-        ITile currentLocation = leveling.getTarget();
-        final double stepCost = costForMovingInLevel( currentLocation.getLevel().getType() );
+    /**
+     * @return The last result of {@link #reachableTiles()} if it was found from the given location with the given speed and nothing in its
+     * level nor in our owner's view changed since, otherwise {@code null}.
+     */
+    @Nullable
+    private Reachability getCurrentReachability(final ITile location, final double speed) {
+        Reachability lastReachability = reachability;
+        if (lastReachability == null || !lastReachability.getLevel().equals( location.getLevel() ) || //
+            lastReachability.getRootIndex() != location.getIndex() || lastReachability.getMaxCost() != speed || //
+            reachabilityVersion != location.getLevel().getVersion() || reachabilityVisibilityVersion != getVisibilityVersion())
+            return null;
+
+        return lastReachability;
+    }
+
+    /**
+     * @return The version of our owner's view: which tiles are accessible to us depends on which tiles our owner observes, in any level.
+     */
+    private long getVisibilityVersion() {
+        return getGameObject().getOwner().map( owner -> owner.getController().getVisibilityVersion() ).orElse( 0L );
+    }
 
-        // Initialize path finding data functions.
-        PredicateNN<ITile> foundFunction = tile -> tile.equals( target );
-        NNFunctionNN<Step<ITile>, Double> costFunction = tileStep -> {
-            if (!tileStep.getTo().isAccessible().isTrue())
+    /**
+     * @return The cost of stepping between two neighbouring tiles of the given level, by their indexes.
+     */
+    private IntIntToDoubleFunction costFunction(final ILevel level) {
+        double stepCost = costForMovingInLevel( level.getType() );
+        return (fromIndex, toIndex) -> {
+            if (!level.tileAt( toIndex ).isAccessible().isTrue())
                 return Double.MAX_VALUE;
 
             return stepCost;
         };
-        NNFunctionNN<ITile, Stream<? extends ITile>> neighboursFunction = (input) -> input.neighbours().stream();
+    }
 
-        // Find the path!
-        Optional<Path<ITile>> path = find( currentLocation, foundFunction, costFunction, remainingSpeed - leveling.getCost(),
-                                           neighboursFunction );
-        return Movement.possible( this, leveling.getCost() + (path.isPresent()? path.get().getCost(): 0), leveling, path );
+    @Override
+    ModuleInfo getInfo() {
+        return new ModuleInfo.Mobility( movementSpeed, remainingSpeed );
     }
 
     @Override
@@ -185,6 +369,9 @@ public class MobilityModule extends Module implements IMobilityModule, IMobility
 
     @Override
     protected void onNewTurn() {
+        GoToOrder order = goToOrder;
+        if (order != null)
+            followGoTo( order );
     }
 
     @Override
@@ -250,8 +437,10 @@ public class MobilityModule extends Module implements IMobilityModule, IMobility
             assertState( isPossible(), ImpossibleException.class );
             assertState( cost <= module.remainingSpeed, InvalidatedException.class );
 
-            // TODO: No target.isAccessible check: Most units that level cannot see other levels before they go there.
-            // TODO: Should we disallow leveling until you can see the level above you like we do with movement and the tile you move to?
+            // We may not be able to observe the tile we level onto, but we can't level onto it if it's taken.
+            GameObject targetContents = Tile.cast( target.get() ).getLevel().getContents( Tile.cast( target.get() ).getIndex() );
+            assertState( targetContents == null || targetContents.equals( module.getGameObject() ), InvalidatedException.class );
+
             Change.From<ITile> locationChange = Change.<ITile>from( module.getGameObject().getLocation().get() );
             ChangeDbl.From remainingSpeedChange = ChangeDbl.from( module.remainingSpeed );
 
@@ -275,22 +464,74 @@ public class MobilityModule extends Module implements IMobilityModule, IMobility
         private final double                cost;
         private final Leveling              leveling;
         private final Optional<Path<ITile>> path;
+        // If the path was planned against the current state of the game: the chunks the path crosses, with the level of each and the
+        // version of that level when the path was planned against it, and the version of the owner's view at that time.
+        @Nullable
+        private final Level[]               pathLevels;
+        @Nullable
+        private final int[]                 pathChunks;
+        @Nullable
+        private final long[]                plannedVersions;
+        private final long                  plannedViewVersion;
 
         private Movement(final MobilityModule module, final double cost, @Nullable final Leveling leveling,
-                         final Optional<Path<ITile>> path) {
+                         final Optional<Path<ITile>> path, final boolean planned) {
             this.module = module;
             this.cost = cost;
             this.leveling = leveling;
             this.path = path;
+            plannedViewVersion = module.getVisibilityVersion();
+            if (!planned) {
+                pathLevels = null;
+                pathChunks = null;
+                plannedVersions = null;
+                return;
+            }
+
+            // List each chunk the path crosses, once for each time it enters the chunk.
+            Level[] levels = new Level[4];
+            int[] chunks = new int[4];
+            int count = 0;
+            for (Path<ITile> step = path.orElse( null ); step != null; step = step.getParent().orElse( null )) {
+                Tile tile = Tile.cast( step.getTarget() );
+                int chunk = tile.getLevel().chunkIndex( tile.getIndex() );
+                if (count > 0 && levels[count - 1].equals( tile.getLevel() ) && chunks[count - 1] == chunk)
+                    continue;
+
+                if (count == chunks.length) {
+                    levels = Arrays.copyOf( levels, count * 2 );
+                    chunks = Arrays.copyOf( chunks, count * 2 );
+                }
+                levels[count] = tile.getLevel();
+                chunks[count++] = chunk;
+            }
+            pathLevels = Arrays.copyOf( levels, count );
+            pathChunks = Arrays.copyOf( chunks, count );
+            plannedVersions = new long[count];
+            for (int i = 0; i < count; ++i)
+                plannedVersions[i] = pathLevels[i].getVersion();
         }
 
         static Movement impossible(final MobilityModule module, final double cost) {
-            return new Movement( module, cost, null, Optional.empty() );
+            return new Movement( module, cost, null, Optional.empty(), false );
         }
 
+        /**
+         * A movement along a path that may have been planned against another state of its levels.  Each of its tiles is checked when the
+         * movement is executed.
+         */
         static Movement possible(final MobilityModule module, final double cost, @Nonnull final Leveling leveling,
                                  final Optional<Path<ITile>> path) {
-            return new Movement( module, cost, leveling, path );
+            return new Movement( module, cost, leveling, path, false );
+        }
+
+        /**
+         * A movement along a path that was just planned against the current state of its levels and the owner's view: the tiles of the
+         * path were accessible.  Its tiles are only checked when the movement is executed if anything changed where it goes since.
+         */
+        static Movement planned(final MobilityModule module, final double cost, @Nonnull final Leveling leveling,
+                                final Optional<Path<ITile>> path) {
+            return new Movement( module, cost, leveling, path, true );
         }
 
         /**
@@ -327,29 +568,52 @@ public class MobilityModule extends Module implements IMobilityModule, IMobility
             assertState( cost <= module.remainingSpeed, InvalidatedException.class );
             assert leveling != null;
 
-            Change.From<ITile> locationChange = Change.<ITile>from( module.getGameObject().getLocation().get() );
-            ChangeDbl.From remainingSpeedChange = ChangeDbl.from( module.remainingSpeed );
+            // Check that the path can still be walked, tile by tile if it wasn't planned just now or anything changed where it goes since.
+            // This includes the root, which is the tile we level onto, so nothing is changed if the path can't be walked.
+            if (!isUnchanged()) {
+                Path<ITile> tracePath = path.get();
+                while (true) {
+                    assertState( tracePath.getTarget().isAccessible().isTrue() || //
+                                 module.getGameObject().getLocation().get().equals( tracePath.getTarget() ), //
+                                 PathInvalidatedException.class, tracePath );
 
-            // Check that the path can still be walked.
-            Path<ITile> tracePath = path.get();
-            while (true) {
-                assertState( tracePath.getTarget().isAccessible().isTrue() || //
-                             module.getGameObject().getLocation().get().equals( tracePath.getTarget() ), //
-                             PathInvalidatedException.class, tracePath );
+                    Optional<Path<ITile>> parent = tracePath.getParent();
+                    if (!parent.isPresent())
+                        break;
 
-                Optional<Path<ITile>> parent = tracePath.getParent();
-                if (!parent.isPresent())
-                    break;
-
-                tracePath = parent.get();
+                    tracePath = parent.get();
+                }
             }
 
             // Execute the leveling.
             leveling.execute();
 
-            // Execute the path.
-            module.getGameObject().getController().setLocation( Tile.cast( path.get().getTarget() ) );
-            module.remainingSpeed -= path.get().getCost();
+            // Execute the path one level at a time: move along it within a level, and level across where it crosses to another level.
+            List<Path<ITile>> steps = new ArrayList<>();
+            for (Path<ITile> step = path.get(); step != null; step = step.getParent().orElse( null ))
+                steps.add( step );
+            Collections.reverse( steps );
+            int runStart = 0;
+            for (int s = 1; s < steps.size(); ++s)
+                if (!steps.get( s ).getTarget().getLevel().equals( steps.get( s - 1 ).getTarget().getLevel() )) {
+                    if (s - 1 > runStart)
+                        move( steps.get( runStart ), steps.get( s - 1 ) );
+                    Leveling.possible( module, steps.get( s ).getTarget(), steps.get( s ).getCost() - steps.get( s - 1 ).getCost() )
+                            .execute();
+                    runStart = s;
+                }
+            move( steps.get( runStart ), steps.get( steps.size() - 1 ) );
+        }
+
+        /**
+         * Move along the path within a level, from the tile of one of its steps to the tile of a later step.
+         */
+        private void move(final Path<ITile> from, final Path<ITile> to) {
+            Change.From<ITile> locationChange = Change.<ITile>from( module.getGameObject().getLocation().get() );
+            ChangeDbl.From remainingSpeedChange = ChangeDbl.from( module.remainingSpeed );
+
+            module.getGameObject().getController().setLocation( Tile.cast( to.getTarget() ) );
+            module.remainingSpeed -= to.getCost() - from.getCost();
 
             module.getGameObject()
                   .getGame()
@@ -358,6 +622,21 @@ public class MobilityModule extends Module implements IMobilityModule, IMobility
                   .onMobilityMoved( module, locationChange.to( module.getGameObject().getLocation().get() ),
                                     remainingSpeedChange.to( module.remainingSpeed ) );
         }
+
+        /**
+         * @return {@code true} if the path was planned against the current state of the game, and neither the tiles in the chunks the
+         * path crosses nor the owner's view changed since.
+         */
+        boolean isUnchanged() {
+            if (pathLevels == null || pathChunks == null || plannedVersions == null || plannedViewVersion != module.getVisibilityVersion())
+                return false;
+
+            for (int i = 0; i < pathChunks.length; ++i)
+                if (pathLevels[i].getVersion() != plannedVersions[i] && pathLevels[i].getChunkVersion( pathChunks[i] ) > plannedVersions[i])
+                    return false;
+
+            return true;
+        }
     }
 
 
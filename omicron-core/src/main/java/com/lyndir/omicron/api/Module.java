@@ -20,6 +20,7 @@ import com.google.common.base.Preconditions;
 import com.lyndir.lhunath.opal.system.logging.Logger;
 import com.lyndir.lhunath.opal.system.util.MetaObject;
 import com.lyndir.omicron.api.error.*;
+import com.lyndir.omicron.api.view.ModuleInfo;
 import javax.annotation.Nullable;
 
 
@@ -75,6 +76,11 @@ public abstract class Module extends MetaObject implements IModule {
 
     protected abstract void onNewTurn();
 
+    /**
+     * @return A snapshot of this module's state, regardless of whether the current player can observe it.
+     */
+    abstract ModuleInfo getInfo();
+
     static Module cast(final IModule module) {
         return (Module) module;
     }
@@ -0,0 +1,152 @@
+package com.lyndir.omicron.api;
+
+import com.google.common.collect.ImmutableMap;
+import com.lyndir.lhunath.opal.math.Size;
+import com.lyndir.omicron.api.util.IntIntToDoubleFunction;
+import com.lyndir.omicron.api.util.PathUtils;
+import java.util.*;
+import javax.annotation.Nullable;
+
+
+/**
+ * Moves many objects of a player at once.
+ *
+ * The tiles the objects can step on are captured once, before any path is searched: a tile is passable if the player can observe its
+ * position and nothing occupies it.  The paths are then searched in parallel against that snapshot.  The objects that want to move
+ * through or onto the same tile are settled in the order of their ID: an object only moves if its path does not touch a tile that an
+ * object with a lower ID moves onto.  Finally, all movements are executed in a batch: every event they cause, those of the units and
+ * tiles as well as those of their mobility, is held back until the last movement is done and then fired back to back.  An order that
+ * turns out to be impossible when it is executed is skipped without affecting the others.
+ *
+ * @author lhunath, 2014-09-19
+ */
+class MovementPlanner {
+
+    private final Player                 player;
+    private final Map<LevelType, BitSet> passableTiles = new EnumMap<>( LevelType.class );
+    private final Map<LevelType, BitSet> claimedTiles  = new EnumMap<>( LevelType.class );
+
+    MovementPlanner(final Player player) {
+        this.player = player;
+    }
+
+    /**
+     * @param orders For each object to move, the tile to move it to.
+     *
+     * @return The movement executed for each object that moved, in the order of their ID.
+     */
+    ImmutableMap<GameObject, MobilityModule.Movement> moveAll(final Map<? extends IGameObject, ? extends ITile> orders) {
+
+        // Prepare the orders that can be carried out, by object ID.
+        List<Order> plannedOrders = new ArrayList<>( orders.size() );
+        for (final Map.Entry<? extends IGameObject, ? extends ITile> order : orders.entrySet()) {
+            GameObject gameObject = GameObject.cast( order.getKey() );
+            Optional<MobilityModule> module = gameObject.getModule( ModuleType.MOBILITY, 0 );
+            if (!module.isPresent())
+                continue;
+
+            Tile target = Tile.cast( order.getValue() );
+            MobilityModule.Leveling leveling = module.get().leveling( target.getLevel().getType() );
+            if (leveling.isPossible())
+                plannedOrders.add( new Order( gameObject, module.get(), leveling, target ) );
+        }
+        plannedOrders.sort( Comparator.comparingLong( order -> order.gameObject.getObjectID() ) );
+
+        // Capture the passable tiles and find all paths against them.
+        snapshot( plannedOrders );
+        plannedOrders.parallelStream().forEach( Order::plan );
+
+        // Execute the movements that do not conflict with those of a lower ID, holding back all their events until they are done.
+        ImmutableMap.Builder<GameObject, MobilityModule.Movement> movements = ImmutableMap.builder();
+        player.getController().getGameController().fireBatch( () -> {
+            for (final Order order : plannedOrders) {
+                if (order.path == null || !claim( order.path ))
+                    continue;
+
+                // The only changes since the snapshot are the movements executed before this one, which the claims keep off its path.
+                double cost = order.leveling.getCost() + order.path.getCost();
+                MobilityModule.Movement movement = MobilityModule.Movement.possible( order.module, cost, order.leveling, //
+                                                                                     Optional.of( order.path ) );
+                try {
+                    movement.execute();
+                    movements.put( order.gameObject, movement );
+                }
+                catch (final IModule.ImpossibleException | IModule.InvalidatedException | IllegalStateException ignored) {
+                    // The object or its path changed since the snapshot, leave it where it is and carry on with the other orders.
+                }
+            }
+        } );
+
+        return movements.build();
+    }
+
+    /**
+     * Capture the passable tiles of the levels the orders move objects in.
+     */
+    private void snapshot(final Collection<Order> orders) {
+        BitSet observablePositions = player.getController().observablePositions();
+        for (final Order order : orders) {
+            Level level = Tile.cast( order.leveling.getTarget() ).getLevel();
+            if (passableTiles.containsKey( level.getType() ))
+                continue;
+
+            Size size = level.getSize();
+            BitSet passable = (BitSet) observablePositions.clone();
+            for (final GameObject gameObject : level.getObjectsInRect( 0, 0, size.getWidth() - 1, size.getHeight() - 1, null, null ))
+                passable.clear( gameObject.getLocationUnchecked().getIndex() );
+
+            passableTiles.put( level.getType(), passable );
+            claimedTiles.put( level.getType(), new BitSet( size.getWidth() * size.getHeight() ) );
+        }
+    }
+
+    /**
+     * Claim the target of a path if no tile of the path has been claimed yet.
+     *
+     * @return true if the path was claimed.
+     */
+    private boolean claim(final PathUtils.Path<ITile> path) {
+        BitSet claimed = claimedTiles.get( path.getTarget().getLevel().getType() );
+        for (Optional<PathUtils.Path<ITile>> step = Optional.of( path ); step.isPresent(); step = step.get().getParent())
+            if (claimed.get( step.get().getTarget().getIndex() ))
+                return false;
+
+        claimed.set( path.getTarget().getIndex() );
+        return true;
+    }
+
+    private class Order {
+
+        private final GameObject              gameObject;
+        private final MobilityModule          module;
+        private final MobilityModule.Leveling leveling;
+        private final Tile                    target;
+        private final double                  stepCost;
+        private final double                  maxCost;
+
+        @Nullable
+        private PathUtils.Path<ITile> path;
+
+        Order(final GameObject gameObject, final MobilityModule module, final MobilityModule.Leveling leveling, final Tile target) {
+            this.gameObject = gameObject;
+            this.module = module;
+            this.leveling = leveling;
+            this.target = target;
+
+            // Read the module's state here, the paths are searched on other threads.
+            stepCost = module.costForMovingInLevel( target.getLevel().getType() );
+            maxCost = module.getRemainingSpeed() - leveling.getCost();
+        }
+
+        /**
+         * Find the path of this order against the snapshot of passable tiles.  This does not read any state of the game.
+         */
+        void plan() {
+            BitSet passable = passableTiles.get( target.getLevel().getType() );
+            IntIntToDoubleFunction costFunction = (fromIndex, toIndex) -> passable.get( toIndex )? stepCost: Double.MAX_VALUE;
+
+            path = PathUtils.findShortest( target.getLevel(), leveling.getTarget().getIndex(), target.getIndex(), costFunction, stepCost,
+                                           maxCost ).orElse( null );
+        }
+    }
+}
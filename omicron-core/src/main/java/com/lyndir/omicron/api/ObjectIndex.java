@@ -0,0 +1,159 @@
+package com.lyndir.omicron.api;
+
+import com.google.common.collect.ImmutableList;
+import com.lyndir.omicron.api.util.RadiusOffsets;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+
+/**
+ * The game objects in a level, bucketed by the square cell of tiles they stand in.  Queries only look at the cells that overlap the
+ * queried area, so their cost depends on the size of the area and the amount of objects in it, not on the size of the level.
+ *
+ * @author lhunath, 2014-09-10
+ */
+class ObjectIndex {
+
+    private static final int CELL_SHIFT = 4;
+
+    private final int    width;
+    private final int    height;
+    private final int    cellsX;
+    private final Cell[] cells;
+
+    ObjectIndex(final int width, final int height) {
+        this.width = width;
+        this.height = height;
+        cellsX = (width >> CELL_SHIFT) + 1;
+        cells = new Cell[cellsX * ((height >> CELL_SHIFT) + 1)];
+    }
+
+    private int cellIndex(final int x, final int y) {
+        return (y >> CELL_SHIFT) * cellsX + (x >> CELL_SHIFT);
+    }
+
+    /**
+     * Record that an object now stands on the tile with the given index.
+     */
+    synchronized void add(final int index, final GameObject gameObject) {
+        int cellIndex = cellIndex( index % width, index / width );
+        Cell cell = cells[cellIndex];
+        if (cell == null)
+            cell = cells[cellIndex] = new Cell();
+
+        cell.add( index, gameObject );
+    }
+
+    /**
+     * Record that an object no longer stands on the tile with the given index.
+     */
+    synchronized void remove(final int index, final GameObject gameObject) {
+        Cell cell = cells[cellIndex( index % width, index / width )];
+        if (cell != null)
+            cell.remove( index, gameObject );
+    }
+
+    /**
+     * Find the objects at most the given distance away from a tile.
+     *
+     * @param index      The index of the tile at the center of the area.
+     * @param radius     The maximum distance from the center tile of the objects to find.
+     * @param owner      Only find objects owned by this player, or {@code null} to find objects regardless of their owner.
+     * @param moduleType Only find objects with a module of this type, or {@code null} to find objects regardless of their modules.
+     */
+    synchronized ImmutableList<GameObject> inRadius(final int index, final int radius, @Nullable final Player owner,
+                                                    @Nullable final PublicModuleType<?> moduleType) {
+        int x = index % width, y = index / width;
+        ImmutableList.Builder<GameObject> objects = ImmutableList.builder();
+        forEachCell( x - radius, y - radius, x + radius, y + radius, cell -> {
+            for (int o = 0; o < cell.size; ++o) {
+                int objectIndex = cell.indexes[o];
+                if (RadiusOffsets.distance( objectIndex % width - x, objectIndex / width - y ) <= radius
+                    && matches( cell.objects[o], owner, moduleType ))
+                    objects.add( cell.objects[o] );
+            }
+        } );
+
+        return objects.build();
+    }
+
+    /**
+     * Find the objects within a rectangle of tiles.
+     *
+     * @param minX       The smallest horizontal coordinate of the tiles in the area.
+     * @param minY       The smallest vertical coordinate of the tiles in the area.
+     * @param maxX       The largest horizontal coordinate of the tiles in the area.
+     * @param maxY       The largest vertical coordinate of the tiles in the area.
+     * @param owner      Only find objects owned by this player, or {@code null} to find objects regardless of their owner.
+     * @param moduleType Only find objects with a module of this type, or {@code null} to find objects regardless of their modules.
+     */
+    synchronized ImmutableList<GameObject> inRect(final int minX, final int minY, final int maxX, final int maxY,
+                                                  @Nullable final Player owner, @Nullable final PublicModuleType<?> moduleType) {
+        ImmutableList.Builder<GameObject> objects = ImmutableList.builder();
+        forEachCell( minX, minY, maxX, maxY, cell -> {
+            for (int o = 0; o < cell.size; ++o) {
+                int objectX = cell.indexes[o] % width, objectY = cell.indexes[o] / width;
+                if (objectX >= minX && objectY >= minY && objectX <= maxX && objectY <= maxY
+                    && matches( cell.objects[o], owner, moduleType ))
+                    objects.add( cell.objects[o] );
+            }
+        } );
+
+        return objects.build();
+    }
+
+    private void forEachCell(final int minX, final int minY, final int maxX, final int maxY, final CellVisitor visitor) {
+        int fromX = Math.max( 0, minX ) >> CELL_SHIFT, toX = Math.min( width - 1, maxX ) >> CELL_SHIFT;
+        int fromY = Math.max( 0, minY ) >> CELL_SHIFT, toY = Math.min( height - 1, maxY ) >> CELL_SHIFT;
+        for (int cellY = fromY; cellY <= toY; ++cellY)
+            for (int cellX = fromX; cellX <= toX; ++cellX) {
+                Cell cell = cells[cellY * cellsX + cellX];
+                if (cell != null)
+                    visitor.visit( cell );
+            }
+    }
+
+    private static boolean matches(final GameObject gameObject, @Nullable final Player owner,
+                                   @Nullable final PublicModuleType<?> moduleType) {
+        if (owner != null && !owner.equals( gameObject.getOwner().orElse( null ) ))
+            return false;
+
+        return moduleType == null || gameObject.hasModule( moduleType );
+    }
+
+    private interface CellVisitor {
+
+        void visit(Cell cell);
+    }
+
+
+    private static class Cell {
+
+        private GameObject[] objects = new GameObject[4];
+        private int[]        indexes = new int[4];
+        private int          size;
+
+        void add(final int index, final GameObject gameObject) {
+            if (size == objects.length) {
+                objects = Arrays.copyOf( objects, size * 2 );
+                indexes = Arrays.copyOf( indexes, size * 2 );
+            }
+
+            objects[size] = gameObject;
+            indexes[size] = index;
+            ++size;
+        }
+
+        void remove(final int index, final GameObject gameObject) {
+            for (int o = 0; o < size; ++o)
+                if (indexes[o] == index && objects[o].equals( gameObject )) {
+                    // Move the last object into the hole.
+                    --size;
+                    objects[o] = objects[size];
+                    indexes[o] = indexes[size];
+                    objects[size] = null;
+                    return;
+                }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.lyndir.lhunath.opal.system.util.*;
 import java.util.*;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -23,7 +24,6 @@ public class Player extends MetaObject implements IPlayer {
 
     private static final String[] firstNames = { "Jack", "Daniel", "Derrick", "Yasmin", "Catherin", "Mary" };
     private static final String[] lastNames  = { "Taylor", "Smith", "Brown", "Wilson", "Jones", "Lee" };
-    private static final Random   random     = new Random();
 
     @ObjectMeta(ignoreFor = ObjectMeta.For.all)
     private final PlayerController controller = new PlayerController( this );
@@ -107,9 +107,20 @@ public class Player extends MetaObject implements IPlayer {
     }
 
     public static String randomName() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
         return Joiner.on( ' ' ).join( firstNames[random.nextInt( firstNames.length )], lastNames[random.nextInt( lastNames.length )] );
     }
 
+    /**
+     * @param random The generators of the game the player will join.
+     *
+     * @return A random name, drawn from the game's naming stream.
+     */
+    static String randomName(final GameRandom random) {
+        return Joiner.on( ' ' ).join( firstNames[random.nextInt( GameRandom.Stream.NAMING, firstNames.length )],
+                                      lastNames[random.nextInt( GameRandom.Stream.NAMING, lastNames.length )] );
+    }
+
     @Override
     public int getScore() {
         return score;
@@ -136,20 +147,24 @@ public class Player extends MetaObject implements IPlayer {
         IGameObject lostObject = objects.remove( gameObject.getObjectID() );
         Preconditions.checkState( lostObject == null || lostObject == gameObject );
 
-        if (lostObject != null)
+        if (lostObject != null) {
+            getController().updateVisibility( GameObject.cast( lostObject ) );
             getController().getGameController()
                            .fireIfPlayer( this::equals )
                            .onPlayerLostObject( this, lostObject );
+        }
     }
 
     void addObjects(final GameObject gameObject) {
         GameObject previousObject = objects.put( gameObject.getObjectID(), gameObject );
         Preconditions.checkState( previousObject == null || previousObject == gameObject );
 
-        if (previousObject == null)
+        if (previousObject == null) {
+            getController().updateVisibility( gameObject );
             getController().getGameController()
                            .fireIfPlayer( this::equals )
                            .onPlayerGainedObject( this, gameObject );
+        }
     }
 
     void addObjects(final IGameObject... gameObjects) {
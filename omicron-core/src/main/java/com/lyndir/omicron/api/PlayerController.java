@@ -3,20 +3,29 @@ package com.lyndir.omicron.api;
 import static com.lyndir.omicron.api.Security.*;
 
 import com.lyndir.omicron.api.error.NotAuthenticatedException;
+import com.lyndir.omicron.api.error.NotOwnedException;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
 import com.google.common.base.*;
 import com.google.common.collect.*;
 import com.lyndir.lhunath.opal.system.util.*;
 import com.lyndir.omicron.api.util.Maybe;
 import com.lyndir.omicron.api.util.Maybool;
+import com.lyndir.omicron.api.view.GameObjectInfo;
+import com.lyndir.lhunath.opal.math.Size;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 
 public class PlayerController extends MetaObject implements IPlayerController {
 
     private final Player         player;
     private       GameController gameController;
+    private       Visibility     visibility;
 
     PlayerController(@Nonnull final Player player) {
         this.player = player;
@@ -30,6 +39,7 @@ public class PlayerController extends MetaObject implements IPlayerController {
     void setGameController(final GameController gameController) {
         Preconditions.checkState( this.gameController == null, "This player has already been added to a game!" );
         this.gameController = gameController;
+        visibility = new Visibility( player, gameController.getGame().getLevelSize(), gameController.getInterests() );
 
         // Key-less players immediately set themselves ready to start the game.
         if (player.isKeyLess())
@@ -50,10 +60,24 @@ public class PlayerController extends MetaObject implements IPlayerController {
     public Maybool canObserve(@Nonnull final GameObservable observable)
             throws NotAuthenticatedException {
 
+        // Our own view is tracked incrementally, look it up.
+        if (visibility != null && (isGod() || getPlayer().isCurrentPlayer())) {
+            if (observable instanceof GameObject) {
+                GameObject gameObject = (GameObject) observable;
+                return Maybool.from( isOwnObject( gameObject ) || //
+                                     visibility.isVisible( gameObject.getLocationUnchecked().getPosition() ) );
+            }
+            if (observable instanceof Tile) {
+                Tile tile = (Tile) observable;
+                return Maybool.from( isOwnObject( tile.getLevel().getContents( tile.getIndex() ) ) || //
+                                     visibility.isVisible( tile.getPosition() ) );
+            }
+        }
+
         if (observable instanceof GameObject && playerObjectsObservable().anyMatch( object -> object == observable ))
             return Maybool.yes();
         if (observable instanceof Tile && playerObjectsObservable().map( GameObject::getLocation )
-                                                                   .anyMatch( tile -> tile.isPresent() && tile.get() == observable ))
+                                                                   .anyMatch( tile -> tile.isPresent() && tile.get().equals( observable ) ))
             return Maybool.yes();
 
         // Observable is not owned by us, check if any of our objects can see it.
@@ -71,7 +95,90 @@ public class PlayerController extends MetaObject implements IPlayerController {
     @Override
     public Stream<? extends ITile> observableTiles()
             throws NotAuthenticatedException {
-        return playerObjectsObservable().flatMap( IGameObject::observableTiles );
+        return rasterizeObservableTiles().entrySet().stream().flatMap( entry -> {
+            Level level = getGameController().getGame().getLevel( entry.getKey() );
+            return entry.getValue().stream().mapToObj( level::tileAt );
+        } );
+    }
+
+    /**
+     * @see #playerObjectsObservable()
+     * @see IGameObject#observableTiles()
+     */
+    @Override
+    public IntStream observableTileIndexes(final ILevel level)
+            throws NotAuthenticatedException {
+        Size size = level.getSize();
+        BitSet tiles = new BitSet( size.getWidth() * size.getHeight() );
+        playerObjectsObservable().filter( gameObject -> gameObject.getLocationUnchecked().getLevel().getType() == level.getType() )
+                                 .forEach( gameObject -> rasterizeView( gameObject, tiles ) );
+
+        return tiles.stream();
+    }
+
+    /**
+     * @return true if any of the tiles of the game are observable by this player.
+     */
+    boolean hasObservableTiles()
+            throws NotAuthenticatedException {
+        return playerObjectsObservable().anyMatch( gameObject -> gameObject.getBaseModule() != null );
+    }
+
+    /**
+     * @return The positions this player observes, indexed like the tiles of any level.  Objects observe by position, so they hold for
+     * every level.
+     */
+    BitSet observablePositions() {
+        return Preconditions.checkNotNull( visibility, "This player has not yet been added to a game!" ).snapshot();
+    }
+
+    /**
+     * @param index The index of a position, indexed like the tiles of any level.
+     *
+     * @return true if this player observes the position.
+     */
+    boolean isObservablePosition(final int index) {
+        return visibility != null && visibility.isVisible( index );
+    }
+
+    /**
+     * @return The version of the positions this player observes, which goes up whenever the view of one of our objects changes.
+     */
+    long getVisibilityVersion() {
+        return visibility == null? 0: visibility.getVersion();
+    }
+
+    /**
+     * Draw the view of each of our objects onto the level it is on.
+     *
+     * @return For every level that has observable tiles, the indexes of those tiles.
+     */
+    private Map<LevelType, BitSet> rasterizeObservableTiles() {
+        Map<LevelType, BitSet> observableTiles = new EnumMap<>( LevelType.class );
+        playerObjectsObservable().forEach( gameObject -> {
+            if (gameObject.getBaseModule() == null)
+                return;
+
+            Size size = gameObject.getLocationUnchecked().getLevel().getSize();
+            rasterizeView( gameObject, observableTiles.computeIfAbsent( gameObject.getLocationUnchecked().getLevel().getType(), //
+                                                                        levelType -> new BitSet( size.getWidth() * size.getHeight() ) ) );
+        } );
+
+        return observableTiles;
+    }
+
+    /**
+     * Draw the view of the given object onto the tiles of the level it is on.
+     */
+    private static void rasterizeView(final GameObject gameObject, final BitSet levelTiles) {
+        BaseModule base = gameObject.getBaseModule();
+        if (base == null)
+            return;
+
+        Tile location = gameObject.getLocationUnchecked();
+        Size size = location.getLevel().getSize();
+        ViewMask.of( base.getViewRange() ).rasterize( location.getPosition().getX(), location.getPosition().getY(), //
+                                                       size.getWidth(), size.getHeight(), levelTiles );
     }
 
     /**
@@ -94,6 +201,39 @@ public class PlayerController extends MetaObject implements IPlayerController {
         return getPlayer().getObjects().stream().filter( gameObject -> observer.canObserve( gameObject ).isTrue() );
     }
 
+    /**
+     * @see #canObserve(GameObservable)
+     */
+    @Override
+    public Stream<GameObjectInfo> observedObjects()
+            throws NotAuthenticatedException {
+        boolean observedByCurrentPlayer = isGod() || getPlayer().isCurrentPlayer();
+        Player currentPlayer = observedByCurrentPlayer? null: currentPlayer();
+
+        ImmutableList.Builder<GameObjectInfo> observedObjects = ImmutableList.builder();
+        Game game = getGameController().getGame();
+        Size size = game.getLevelSize();
+        godRun( () -> {
+            for (final LevelType levelType : LevelType.values())
+                for (final GameObject gameObject : game.getLevel( levelType )
+                                                       .getObjectsInRect( 0, 0, size.getWidth() - 1, size.getHeight() - 1, null, null ))
+                    if (canObserve( gameObject ).isTrue() && //
+                        (currentPlayer == null || currentPlayer.canObserve( gameObject ).isTrue()))
+                        observedObjects.add( gameObject.getInfo() );
+        } );
+
+        return observedObjects.build().stream();
+    }
+
+    /**
+     * @see MovementPlanner
+     */
+    @Override
+    public ImmutableMap<GameObject, MobilityModule.Movement> moveAll(final Map<? extends IGameObject, ? extends ITile> orders)
+            throws NotAuthenticatedException, NotOwnedException {
+        return new MovementPlanner( getPlayer() ).moveAll( orders );
+    }
+
     @Override
     public Maybe<GameObject> getObject(final int objectId)
             throws NotAuthenticatedException {
@@ -114,10 +254,22 @@ public class PlayerController extends MetaObject implements IPlayerController {
         return Maybe.unknown();
     }
 
+    private boolean isOwnObject(@Nullable final GameObject gameObject) {
+        return gameObject != null && getPlayer().getObject( gameObject.getObjectID() ).orElse( null ) == gameObject;
+    }
+
     void removeObject(final IGameObject gameObject) {
         getPlayer().removeObject( gameObject );
     }
 
+    /**
+     * Bring our view up to date after one of our objects was gained, lost or moved.
+     */
+    void updateVisibility(final GameObject gameObject) {
+        if (visibility != null)
+            visibility.update( gameObject );
+    }
+
     protected void onReset() {
         for (final GameObject gameObject : ImmutableList.copyOf( getPlayer().getObjects() ))
             gameObject.getController().onReset();
@@ -0,0 +1,81 @@
+package com.lyndir.omicron.api;
+
+import com.google.common.base.Preconditions;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+
+/**
+ * The resource quantities of all the tiles in a level, stored as one primitive array per resource type and indexed by tile index.
+ *
+ * Arrays are only allocated for resource types that have been deposited in the level, so levels without resources cost nothing.  They are
+ * allocated under the layer's lock and published through an atomic reference, so readers need no lock to find them.
+ *
+ * @author lhunath, 2014-09-06
+ */
+class ResourceLayer {
+
+    private final int                         tileCount;
+    private final AtomicReferenceArray<int[]> quantities = new AtomicReferenceArray<>( ResourceType.values().length );
+
+    ResourceLayer(final int tileCount) {
+        this.tileCount = tileCount;
+    }
+
+    /**
+     * @return The quantity of the given resource type available at the tile with the given index.
+     */
+    int getQuantity(final ResourceType resourceType, final int index) {
+        int[] typeQuantities = quantities.get( resourceType.ordinal() );
+        return typeQuantities == null? 0: typeQuantities[index];
+    }
+
+    /**
+     * Set the quantity of the given resource type available at the tile with the given index.
+     *
+     * @return The quantity that was available before the change.
+     */
+    synchronized int setQuantity(final ResourceType resourceType, final int index, final int quantity) {
+        Preconditions.checkArgument( quantity >= 0, "Resource quantity cannot be less than zero: %s", quantity );
+
+        int[] typeQuantities = quantities.get( resourceType.ordinal() );
+        if (typeQuantities == null) {
+            if (quantity == 0)
+                return 0;
+
+            typeQuantities = new int[tileCount];
+            quantities.set( resourceType.ordinal(), typeQuantities );
+        }
+
+        int oldQuantity = typeQuantities[index];
+        typeQuantities[index] = quantity;
+
+        return oldQuantity;
+    }
+
+    /**
+     * @return The total quantity of the given resource type available in the level.
+     */
+    long getTotalQuantity(final ResourceType resourceType) {
+        int[] typeQuantities = quantities.get( resourceType.ordinal() );
+        if (typeQuantities == null)
+            return 0;
+
+        long total = 0;
+        for (final int quantity : typeQuantities)
+            total += quantity;
+
+        return total;
+    }
+
+    /**
+     * @return The indexes of the tiles that have a quantity of the given resource type available, in ascending order.
+     */
+    IntStream tilesWithResource(final ResourceType resourceType) {
+        int[] typeQuantities = quantities.get( resourceType.ordinal() );
+        if (typeQuantities == null)
+            return IntStream.empty();
+
+        return IntStream.range( 0, tileCount ).filter( index -> typeQuantities[index] > 0 );
+    }
+}
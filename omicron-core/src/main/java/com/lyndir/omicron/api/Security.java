@@ -25,7 +25,9 @@ import com.lyndir.lhunath.opal.system.util.Job;
 import com.lyndir.lhunath.opal.system.util.ObjectUtils;
 import com.lyndir.omicron.api.error.*;
 import java.util.*;
+import java.util.function.Consumer;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 
 /**
@@ -33,73 +35,87 @@ import javax.annotation.Nonnull;
  */
 public final class Security {
 
-    private static final ThreadLocal<Game>          activeGameTL      = new ThreadLocal<>();
-    private static final ThreadLocal<Player>        activePlayerTL    = new ThreadLocal<>();
-    private static final ThreadLocal<Deque<Player>> activePlayerJobTL = new ThreadLocal<Deque<Player>>() {
-        @Override
-        protected Deque<Player> initialValue() {
-            return new LinkedList<>();
-        }
-    };
-    private static final ThreadLocal<Deque<Boolean>> godJobTL          = new ThreadLocal<Deque<Boolean>>() {
-        @Override
-        protected Deque<Boolean> initialValue() {
-            return new LinkedList<>();
-        }
-    };
+    private static final ThreadLocal<Context> contextTL = ThreadLocal.withInitial( Context::new );
 
     static <R> R godRun(final Job<R> job) {
-        if (isGod())
+        Context context = contextTL.get();
+        if (context.god)
             // Already god.
             return job.execute();
 
         try {
             // Become god.
-            godJobTL.get().push( true );
+            context.push( null );
             return job.execute();
         }
         finally {
             // Become mortal.
-            Preconditions.checkState( godJobTL.get().pop(), "Expected to be god." );
+            Preconditions.checkState( context.pop() == null, "Expected to be god." );
         }
     }
 
     static void godRun(final Runnable job) {
-        if (isGod()) {
+        godRun( Runnable::run, job );
+    }
+
+    /**
+     * Run a job with an argument as god.  Unlike a job that captures its argument, the same job can be reused for any argument.
+     */
+    static <T> void godRun(final Consumer<? super T> job, final T argument) {
+        Context context = contextTL.get();
+        if (context.god) {
             // Already god.
-            job.run();
+            job.accept( argument );
             return;
         }
 
         try {
             // Become god.
-            godJobTL.get().push( true );
-            job.run();
+            context.push( null );
+            job.accept( argument );
         }
         finally {
             // Become mortal.
-            Preconditions.checkState( godJobTL.get().pop(), "Expected to be god." );
+            Preconditions.checkState( context.pop() == null, "Expected to be god." );
         }
     }
 
-    @SuppressWarnings("ObjectEquality")
     static void playerRun(final Player jobPlayer, final Runnable job) {
+        playerRun( jobPlayer, Runnable::run, job );
+    }
+
+    /**
+     * Run a job with an argument as the given player.  Unlike a job that captures its argument, the same job can be reused for any
+     * argument.
+     */
+    @SuppressWarnings("ObjectEquality")
+    static <T> void playerRun(final Player jobPlayer, final Consumer<? super T> job, final T argument) {
+        Context context = contextTL.get();
         try {
-            godJobTL.get().push( false );
-            activePlayerJobTL.get().push( jobPlayer );
-            job.run();
+            context.push( jobPlayer );
+            job.accept( argument );
         }
         finally {
-            Preconditions.checkState( !godJobTL.get().pop(), "Expected to not be god." );
-            Preconditions.checkState( activePlayerJobTL.get().pop() == jobPlayer, "Expected to pop player for job." );
+            Preconditions.checkState( context.pop() == jobPlayer, "Expected to pop player for job." );
         }
     }
+
+    /**
+     * Capture the security context of the current thread, so that work handed to another thread can run with it.
+     *
+     * @return A snapshot of the current game, player and god status.
+     */
+    static Snapshot capture() {
+        Context context = contextTL.get();
+        return new Snapshot( context.game, context.player, context.jobPlayer(), context.god );
+    }
+
     public static void activateGame(final Game game) {
-        activeGameTL.set( game );
+        contextTL.get().game = game;
     }
 
     public static void activatePlayer(final Player player) {
-        activePlayerTL.set( player );
+        contextTL.get().player = player;
     }
 
     public static void activatePlayerRun(final Player currentPlayer, final Runnable job) {
@@ -109,11 +125,11 @@ public final class Security {
     }
 
     static boolean isAuthenticated() {
-        return activePlayerTL.get() != null;
+        return contextTL.get().player != null;
     }
 
     static boolean isGod() {
-        return !godJobTL.get().isEmpty() && godJobTL.get().peek();
+        return contextTL.get().god;
     }
 
     /**
@@ -128,11 +144,12 @@ public final class Security {
     @Nonnull
     static Player currentPlayer()
             throws NotAuthenticatedException {
-        Player jobPlayer = activePlayerJobTL.get().peek();
+        Context context = contextTL.get();
+        Player jobPlayer = context.jobPlayer();
         if (jobPlayer != null)
             return jobPlayer;
 
-        Player currentPlayer = activePlayerTL.get();
+        Player currentPlayer = context.player;
         ExceptionUtils.assertSecure( currentPlayer != null, NotAuthenticatedException.class );
         assert currentPlayer != null;
 
@@ -142,7 +159,7 @@ public final class Security {
     @Nonnull
     static Game currentGame()
             throws NotAuthenticatedException {
-        Game currentGame = activeGameTL.get();
+        Game currentGame = contextTL.get().game;
         ExceptionUtils.assertSecure( currentGame != null, NotAuthenticatedException.class );
         assert currentGame != null;
 
@@ -167,4 +184,101 @@ public final class Security {
         assertSecure( currentPlayer().canObserve( observable ).isTrue(), //
                       NotObservableException.class, observable );
     }
+
+    /**
+     * The security state of a thread: the activated game and player, and a stack of the god and player jobs it is running.
+     */
+    private static class Context {
+
+        private Game     game;
+        private Player   player;
+        // A null frame is a god job, any other frame is a job of that player.
+        private Player[] frames = new Player[8];
+        private int      depth;
+        // The depth of the top-most player frame, or 0 if there is none.
+        private int      jobPlayerDepth;
+        private boolean  god;
+
+        void push(@Nullable final Player jobPlayer) {
+            if (depth == frames.length)
+                frames = Arrays.copyOf( frames, depth * 2 );
+
+            frames[depth++] = jobPlayer;
+            if (jobPlayer != null)
+                jobPlayerDepth = depth;
+            god = jobPlayer == null;
+        }
+
+        @Nullable
+        Player pop() {
+            Preconditions.checkState( depth > 0, "No job to pop." );
+            Player jobPlayer = frames[--depth];
+            frames[depth] = null;
+
+            if (jobPlayerDepth > depth)
+                for (jobPlayerDepth = depth; jobPlayerDepth > 0 && frames[jobPlayerDepth - 1] == null; )
+                    --jobPlayerDepth;
+            god = depth > 0 && frames[depth - 1] == null;
+
+            return jobPlayer;
+        }
+
+        @Nullable
+        Player jobPlayer() {
+            return jobPlayerDepth == 0? null: frames[jobPlayerDepth - 1];
+        }
+    }
+
+    /**
+     * The security state of a thread, captured to run work on another thread as if it ran on the thread it was captured from.
+     */
+    static class Snapshot {
+
+        @Nullable
+        private final Game    game;
+        @Nullable
+        private final Player  player;
+        @Nullable
+        private final Player  jobPlayer;
+        private final boolean god;
+
+        private Snapshot(@Nullable final Game game, @Nullable final Player player, @Nullable final Player jobPlayer, final boolean god) {
+            this.game = game;
+            this.player = player;
+            this.jobPlayer = jobPlayer;
+            this.god = god;
+        }
+
+        /**
+         * Run a job with the captured security state on the current thread, and restore the thread's own state afterwards.
+         */
+        void run(final Runnable job) {
+            Context context = contextTL.get();
+            Game oldGame = context.game;
+            Player oldPlayer = context.player;
+            context.game = game;
+            context.player = player;
+            try {
+                if (jobPlayer == null && god)
+                    godRun( job );
+                else if (jobPlayer == null)
+                    job.run();
+                else if (god)
+                    playerRun( jobPlayer, () -> godRun( job ) );
+                else
+                    playerRun( jobPlayer, job );
+            }
+            finally {
+                context.game = oldGame;
+                context.player = oldPlayer;
+            }
+        }
+
+        /**
+         * @return A job that runs the given job with the captured security state, on whichever thread runs it.
+         */
+        Runnable wrap(final Runnable job) {
+            return () -> run( job );
+        }
+    }
 }
@@ -0,0 +1,126 @@
+package com.lyndir.omicron.api;
+
+import com.lyndir.lhunath.opal.system.logging.Logger;
+import com.lyndir.omicron.api.util.RadiusOffsets;
+import java.util.*;
+import javax.annotation.Nullable;
+
+
+/**
+ * Picks the tiles on which the players' starting units are placed.
+ *
+ * The candidate tiles are the ground tiles with metals, indexed when the placer is created.  Only the richer half of the candidates,
+ * measured by the metals around them, is used, so that no player starts far worse off than another.  Candidates are tried in an order
+ * shuffled by the game's world stream, and a spawn must keep a minimum distance from the spawns of the other players.  When no candidate
+ * is left, placement fails rather than searching forever, and it fails the same way for the same seed.
+ *
+ * @author lhunath, 2014-09-14
+ */
+class SpawnPlacer {
+
+    @SuppressWarnings("UnusedDeclaration")
+    private static final Logger logger = Logger.get( SpawnPlacer.class );
+
+    private static final int RICHNESS_RADIUS = 3;
+
+    private final Level            ground;
+    private final Level            sky;
+    private final SplittableRandom random;
+    private final int              minDistance;
+    private final int[]            candidates;
+    private final List<Integer>    spawns = new ArrayList<>();
+    private       int              nextCandidate;
+
+    /**
+     * @param players The amount of players that will need a spawn.
+     */
+    SpawnPlacer(final Level ground, final Level sky, final int players, final SplittableRandom random) {
+        this.ground = ground;
+        this.sky = sky;
+        this.random = random;
+
+        // Spread the players out over the level, leaving each about half the width of the area it would get in a grid.
+        minDistance = Math.max( 1, (int) Math.sqrt( (double) ground.getTileCount() / Math.max( 1, players ) ) / 2 );
+
+        // Keep the candidates that are at least as rich as the median candidate.
+        int[] metalTiles = ground.getResources().tilesWithResource( ResourceType.METALS ).toArray();
+        long[] richness = new long[metalTiles.length];
+        for (int c = 0; c < metalTiles.length; ++c) {
+            final int candidate = c;
+            ground.forEachTileInRadius( metalTiles[c], RICHNESS_RADIUS, index -> //
+                    richness[candidate] += ground.getResources().getQuantity( ResourceType.METALS, index ) );
+        }
+        long[] sortedRichness = richness.clone();
+        Arrays.sort( sortedRichness );
+        long medianRichness = sortedRichness.length == 0? 0: sortedRichness[sortedRichness.length / 2];
+        int[] fairCandidates = new int[metalTiles.length];
+        int fairCandidatesSize = 0;
+        for (int c = 0; c < metalTiles.length; ++c)
+            if (richness[c] >= medianRichness)
+                fairCandidates[fairCandidatesSize++] = metalTiles[c];
+
+        // Shuffle the candidates.
+        candidates = Arrays.copyOf( fairCandidates, fairCandidatesSize );
+        for (int c = candidates.length - 1; c > 0; --c) {
+            int other = random.nextInt( c + 1 );
+            int candidate = candidates[c];
+            candidates[c] = candidates[other];
+            candidates[other] = candidate;
+        }
+        logger.dbg( "%d spawn candidates of %d metal tiles, minimum distance: %d", candidates.length, metalTiles.length, minDistance );
+    }
+
+    /**
+     * Find the tiles for a player's starting units: an engineer on a ground tile with metals, an airship above one of its neighbours
+     * and a scout on another one of its neighbours.
+     *
+     * @return The tiles for the engineer, the airship and the scout, in that order.
+     *
+     * @throws IllegalStateException If there is no spot left that satisfies the constraints.
+     */
+    Tile[] place(final Player player) {
+        while (nextCandidate < candidates.length) {
+            int engineerIndex = candidates[nextCandidate++];
+            if (ground.getContents( engineerIndex ) != null || !isFarFromSpawns( engineerIndex ))
+                continue;
+
+            int sideOffset = random.nextInt( Level.SIDES.length );
+            Tile airshipTile = findNeighbour( sky, engineerIndex, sideOffset );
+            if (airshipTile == null)
+                continue;
+            Tile scoutTile = findNeighbour( ground, engineerIndex, sideOffset );
+            if (scoutTile == null)
+                continue;
+
+            spawns.add( engineerIndex );
+            return new Tile[]{ ground.tileAt( engineerIndex ), airshipTile, scoutTile };
+        }
+
+        throw new IllegalStateException(
+                String.format( "No spawn left for player %s: %d candidates with metals, %d players placed at least %d tiles apart.",
+                               player, candidates.length, spawns.size(), minDistance ) );
+    }
+
+    private boolean isFarFromSpawns(final int index) {
+        int width = ground.getSize().getWidth();
+        for (final int spawn : spawns)
+            if (RadiusOffsets.distance( index % width - spawn % width, index / width - spawn / width ) < minDistance)
+                return false;
+
+        return true;
+    }
+
+    /**
+     * @return The first empty tile of the given level on a side of the given tile, trying the sides from the given offset on.
+     */
+    @Nullable
+    private static Tile findNeighbour(final Level level, final int index, final int sideOffset) {
+        for (int s = 0; s < Level.SIDES.length; ++s) {
+            int neighbourIndex = level.neighbourIndex( index, (sideOffset + s) % Level.SIDES.length );
+            if (neighbourIndex >= 0 && level.getContents( neighbourIndex ) == null)
+                return level.tileAt( neighbourIndex );
+        }
+
+        return null;
+    }
+}
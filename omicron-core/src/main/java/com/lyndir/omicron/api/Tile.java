@@ -1,15 +1,16 @@
 package com.lyndir.omicron.api;
 
-import static com.lyndir.lhunath.opal.system.util.ObjectUtils.*;
 import static com.lyndir.omicron.api.Security.*;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.*;
+import com.lyndir.lhunath.opal.math.Side;
 import com.lyndir.lhunath.opal.math.Vec2;
 import com.lyndir.lhunath.opal.system.util.*;
 import com.lyndir.omicron.api.util.Maybe;
 import java.util.*;
 import java.util.Objects;
+import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -22,24 +23,18 @@ import javax.annotation.Nullable;
 @ObjectMeta(useFor = { })
 public class Tile extends MetaObject implements ITile {
 
-    @Nullable
-    private       GameObject contents;
     @ObjectMeta(useFor = ObjectMeta.For.all)
     private final Vec2       position;
+    private final int        index;
     @ObjectMeta(useFor = ObjectMeta.For.all)
     private final Level      level;
-    @ObjectMeta(useFor = ObjectMeta.For.all)
-    private final Map<ResourceType, Integer> resourceQuantities = Collections.synchronizedMap( new EnumMap<>( ResourceType.class ) );
 
-    Tile(final Vec2 position, final Level level) {
+    Tile(final Vec2 position, final int index, final Level level) {
         this.position = position;
+        this.index = index;
         this.level = level;
     }
 
-    Tile(final int x, final int y, final Level level) {
-        this( Vec2.create( x, y ), level );
-    }
-
     @Override
     public int hashCode() {
         return Objects.hash( position, level );
@@ -63,26 +58,27 @@ public class Tile extends MetaObject implements ITile {
             // Cannot observe tile.
             return Maybe.unknown();
 
-        return Maybe.ofNullable( contents );
+        return Maybe.ofNullable( level.getContents( index ) );
     }
 
     void setContents(@Nullable final GameObject contents) {
-        if (contents != null)
-            Preconditions.checkState( this.contents == null || this.contents.equals( contents ),
+        if (contents != null) {
+            GameObject currentContents = level.getContents( index );
+            Preconditions.checkState( currentContents == null || currentContents.equals( contents ),
                                       "Cannot put object on tile that is not empty: %s", this );
+        }
 
         replaceContents( contents );
     }
 
-    void replaceContents(@SuppressWarnings("ParameterHidesMemberVariable") @Nullable final GameObject contents) {
-        Change.From<IGameObject> contentsChange = Change.<IGameObject>from( this.contents );
+    void replaceContents(@Nullable final GameObject contents) {
+        Change.From<IGameObject> contentsChange = Change.<IGameObject>from( level.setContents( index, contents ) );
 
-        this.contents = contents;
         if (contents != null)
             contents.setLocation( this );
 
         Security.currentGame().getController().fireIfObservable( this ) //
-                .onTileContents( this, contentsChange.to( this.contents ) );
+                .onTileContents( this, contentsChange.to( contents ) );
     }
 
     @Override
@@ -95,20 +91,47 @@ public class Tile extends MetaObject implements ITile {
         return level;
     }
 
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public Optional<Tile> neighbour(final Side side) {
+        int neighbourIndex = level.neighbourIndex( index, side );
+        return neighbourIndex < 0? Optional.empty(): Optional.of( level.tileAt( neighbourIndex ) );
+    }
+
+    @Override
+    public ImmutableList<Tile> neighbours() {
+        ImmutableList.Builder<Tile> neighbours = ImmutableList.builder();
+        for (int side = 0; side < Level.SIDES.length; ++side) {
+            int neighbourIndex = level.neighbourIndex( index, side );
+            if (neighbourIndex >= 0)
+                neighbours.add( level.tileAt( neighbourIndex ) );
+        }
+
+        return neighbours.build();
+    }
+
+    @Override
+    public void forEachNeighbour(final Consumer<? super ITile> action) {
+        for (int side = 0; side < Level.SIDES.length; ++side) {
+            int neighbourIndex = level.neighbourIndex( index, side );
+            if (neighbourIndex >= 0)
+                action.accept( level.tileAt( neighbourIndex ) );
+        }
+    }
+
     void setResourceQuantity(final ResourceType resourceType, final int resourceQuantity) {
-        Preconditions.checkArgument( resourceQuantity >= 0, "Resource quantity cannot be less than zero: %s", resourceQuantity );
-        ChangeInt.From quantityChange;
-        if (resourceQuantity > 0)
-            quantityChange = ChangeInt.from( resourceQuantities.put( resourceType, resourceQuantity ) );
-        else
-            quantityChange = ChangeInt.from( resourceQuantities.remove( resourceType ) );
+        ChangeInt.From quantityChange = ChangeInt.from( level.setResourceQuantity( resourceType, index, resourceQuantity ) );
 
         Security.currentGame().getController().fireIfObservable( this ) //
                 .onTileResources( this, resourceType, quantityChange.to( resourceQuantity ) );
     }
 
     void addResourceQuantity(final ResourceType resourceType, final int resourceQuantity) {
-        setResourceQuantity( resourceType, ifNotNullElse( resourceQuantities.get( resourceType ), 0 ) + resourceQuantity );
+        setResourceQuantity( resourceType, level.getResources().getQuantity( resourceType, index ) + resourceQuantity );
     }
 
     @Override
@@ -117,8 +140,10 @@ public class Tile extends MetaObject implements ITile {
 
         ImmutableMap.Builder<ResourceType, Maybe<Integer>> builder = ImmutableMap.builder();
         for (final ResourceType resourceType : ResourceType.values())
-            if (observable)
-                builder.put( resourceType, Maybe.ofNullable( resourceQuantities.get( resourceType ) ) );
+            if (observable) {
+                int quantity = level.getResources().getQuantity( resourceType, index );
+                builder.put( resourceType, quantity > 0? Maybe.of( quantity ): Maybe.<Integer>empty() );
+            }
             else
                 builder.put( resourceType, Maybe.unknown() );
 
@@ -127,6 +152,7 @@ public class Tile extends MetaObject implements ITile {
 
     @Override
     public Optional<? extends IPlayer> getOwner() {
+        GameObject contents = level.getContents( index );
         return contents == null? Optional.empty(): contents.getOwner();
     }
 
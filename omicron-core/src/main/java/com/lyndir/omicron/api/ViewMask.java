@@ -0,0 +1,97 @@
+package com.lyndir.omicron.api;
+
+import com.google.common.base.Preconditions;
+import com.lyndir.lhunath.opal.math.Vec2;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * The offsets of the tiles a unit with a given view range can observe, relative to the unit's position.
+ *
+ * The disc is measured with {@link Vec2#distanceTo(Vec2)}, the same measure {@link BaseModule#canObserve(GameObservable)} uses.  It is
+ * stored as one span of horizontal offsets per row, so it can be drawn onto a grid a row at a time.
+ *
+ * @author lhunath, 2014-09-15
+ */
+class ViewMask {
+
+    private static final ConcurrentMap<Integer, ViewMask> masks = new ConcurrentHashMap<>();
+
+    private final int   range;
+    private final int[] minDX;
+    private final int[] maxDX;
+
+    private ViewMask(final int range) {
+        this.range = range;
+        minDX = new int[2 * range + 1];
+        maxDX = new int[2 * range + 1];
+
+        Vec2 origin = Vec2.create();
+        for (int dy = -range; dy <= range; ++dy) {
+            int row = dy + range, min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            for (int dx = -range; dx <= range; ++dx)
+                if (origin.distanceTo( Vec2.create( dx, dy ) ) <= range) {
+                    Preconditions.checkState( max == Integer.MIN_VALUE || max == dx - 1, "View disc row is not contiguous: %s", dy );
+                    min = Math.min( min, dx );
+                    max = dx;
+                }
+
+            // An empty row is stored as an empty span.
+            minDX[row] = min == Integer.MAX_VALUE? 1: min;
+            maxDX[row] = max == Integer.MIN_VALUE? 0: max;
+        }
+    }
+
+    /**
+     * @return The mask for units with the given view range.
+     */
+    static ViewMask of(final int range) {
+        Preconditions.checkArgument( range >= 0, "View range cannot be negative: %s", range );
+
+        return masks.computeIfAbsent( range, ViewMask::new );
+    }
+
+    int getRange() {
+        return range;
+    }
+
+    /**
+     * @return true if a unit can observe a tile at the given offset from it.
+     */
+    boolean contains(final int dx, final int dy) {
+        return dy >= -range && dy <= range && dx >= minDX[dy + range] && dx <= maxDX[dy + range];
+    }
+
+    /**
+     * Visit the tiles a unit at the given position can observe on a grid of the given size, one row at a time.
+     *
+     * @param action Receives each row's span of observable tiles as a range of tile indexes.  Rows outside of the grid are skipped and
+     *               the spans are clipped to the grid.
+     */
+    void forEachSpan(final int x, final int y, final int width, final int height, final SpanConsumer action) {
+        for (int dy = Math.max( -range, -y ); dy <= Math.min( range, height - 1 - y ); ++dy) {
+            int fromX = Math.max( 0, x + minDX[dy + range] ), toX = Math.min( width - 1, x + maxDX[dy + range] );
+            if (fromX <= toX)
+                action.accept( (y + dy) * width + fromX, (y + dy) * width + toX + 1 );
+        }
+    }
+
+    /**
+     * Mark the tiles a unit at the given position can observe on a grid of the given size.
+     */
+    void rasterize(final int x, final int y, final int width, final int height, final BitSet tiles) {
+        forEachSpan( x, y, width, height, tiles::set );
+    }
+
+    @FunctionalInterface
+    interface SpanConsumer {
+
+        /**
+         * @param fromIndex The index of the first tile in the span (inclusive).
+         * @param toIndex   The index of the last tile in the span (exclusive).
+         */
+        void accept(int fromIndex, int toIndex);
+    }
+}
@@ -0,0 +1,158 @@
+package com.lyndir.omicron.api;
+
+import com.lyndir.lhunath.opal.math.Size;
+import com.lyndir.lhunath.opal.math.Vec2;
+import java.util.*;
+import javax.annotation.Nullable;
+
+
+/**
+ * The positions a player can observe through its objects.
+ *
+ * Every position keeps a count of the player's objects that observe it and a bit that is set while the count is positive, so a
+ * visibility check is a single bit test.  The counts are kept up to date incrementally: whenever one of the player's objects is gained,
+ * lost or moved, only the view of that object is taken off the counts and added back at its new position.
+ *
+ * Objects observe by position, regardless of the level they are on (see {@link BaseModule#canObserve(GameObservable)}), so the counts
+ * are kept per position and the same bits serve every level.
+ *
+ * The visibility has a version that goes up whenever the view of one of the player's objects changes, so results that depend on what the
+ * player observes, in any level, can tell whether they are still current.
+ *
+ * @author lhunath, 2014-09-15
+ */
+class Visibility {
+
+    private final Player                player;
+    private final InterestIndex         interests;
+    private final int                   width;
+    private final int                   height;
+    private final int[]                 counts;
+    private final long[]                bits;
+    private final Map<GameObject, View> views = new HashMap<>();
+    private volatile long               version;
+
+    /**
+     * @param interests The game's interest index, which is told whenever a position enters or leaves this player's view.
+     */
+    Visibility(final Player player, final Size size, final InterestIndex interests) {
+        this.player = player;
+        this.interests = interests;
+        width = size.getWidth();
+        height = size.getHeight();
+        counts = new int[width * height];
+        bits = new long[(counts.length + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    /**
+     * @return true if one of the player's objects observes the given position.
+     */
+    boolean isVisible(final Vec2 position) {
+        return isVisible( position.getX(), position.getY() );
+    }
+
+    boolean isVisible(final int x, final int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return false;
+
+        return isVisible( y * width + x );
+    }
+
+    /**
+     * @param index The index of a position, indexed like the tiles of any level.
+     */
+    boolean isVisible(final int index) {
+        return (bits[index / Long.SIZE] & 1L << index) != 0;
+    }
+
+    /**
+     * @return A copy of the bits of the positions the player observes, indexed like the tiles of any level.
+     */
+    synchronized BitSet snapshot() {
+        return BitSet.valueOf( bits );
+    }
+
+    /**
+     * @return The version of the player's view, which goes up whenever the view of one of the player's objects changes.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Bring the counts up to date with the given object's current state: its owner, its location and its view range.
+     */
+    synchronized void update(final GameObject gameObject) {
+        View oldView = views.get( gameObject );
+        View newView = viewOf( gameObject );
+        if (Objects.equals( oldView, newView ))
+            return;
+
+        if (oldView != null)
+            paint( oldView, -1 );
+        if (newView != null) {
+            paint( newView, 1 );
+            views.put( gameObject, newView );
+        }
+        else
+            views.remove( gameObject );
+
+        ++version;
+    }
+
+    @Nullable
+    private View viewOf(final GameObject gameObject) {
+        if (player.getObject( gameObject.getObjectID() ).orElse( null ) != gameObject)
+            return null;
+
+        BaseModule base = gameObject.getBaseModule();
+        if (base == null)
+            return null;
+
+        Vec2 position = gameObject.getLocationUnchecked().getPosition();
+        return new View( position.getX(), position.getY(), ViewMask.of( base.getViewRange() ) );
+    }
+
+    private void paint(final View view, final int delta) {
+        view.mask.forEachSpan( view.x, view.y, width, height, (fromIndex, toIndex) -> {
+            for (int index = fromIndex; index < toIndex; ++index)
+                if (delta > 0) {
+                    if (counts[index]++ == 0) {
+                        bits[index / Long.SIZE] |= 1L << index;
+                        interests.addObserver( index, player );
+                    }
+                }
+                else if (--counts[index] == 0) {
+                    bits[index / Long.SIZE] &= ~(1L << index);
+                    interests.removeObserver( index, player );
+                }
+        } );
+    }
+
+    private static class View {
+
+        private final int      x;
+        private final int      y;
+        private final ViewMask mask;
+
+        View(final int x, final int y, final ViewMask mask) {
+            this.x = x;
+            this.y = y;
+            this.mask = mask;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash( x, y, mask );
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof View))
+                return false;
+
+            View other = (View) obj;
+            return x == other.x && y == other.y && mask == other.mask;
+        }
+    }
+}
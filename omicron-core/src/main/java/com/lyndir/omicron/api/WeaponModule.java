@@ -5,13 +5,12 @@ import static com.lyndir.omicron.api.error.ExceptionUtils.assertState;
 import com.google.common.collect.ImmutableSet;
 import com.lyndir.omicron.api.error.*;
 import com.lyndir.omicron.api.util.Maybe;
-import java.util.Random;
+import com.lyndir.omicron.api.view.ModuleInfo;
 import java.util.Set;
 
 
 public class WeaponModule extends Module implements IWeaponModule, IWeaponModuleController {
 
-    private static final Random RANDOM = new Random();
     private final int                     firePower;
     private final int                     variance;
     private final int                     range;
@@ -116,13 +115,18 @@ public class WeaponModule extends Module implements IWeaponModule, IWeaponModule
         Maybe<? extends IGameObject> targetGameObject = target.getContents();
         if (targetGameObject.isPresent())
             targetGameObject.get().onModule( ModuleType.BASE, 0, module -> {
-                module.addDamage( firePower + RANDOM.nextInt( variance ) );
+                module.addDamage( firePower + getGameObject().getGame().getRandom().nextInt( GameRandom.Stream.COMBAT, variance ) );
                 return Void.TYPE;
             } );
 
         return true;
     }
 
+    @Override
+    ModuleInfo getInfo() {
+        return new ModuleInfo.Weapon( firePower, variance, range, repeat, ammunitionLoad, supportedLayers, repeated, ammunition );
+    }
+
     @Override
     protected void onReset() {
         repeated = 0;
@@ -0,0 +1,151 @@
+package com.lyndir.omicron.api;
+
+import com.google.common.base.Preconditions;
+import com.lyndir.lhunath.opal.system.logging.Logger;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+
+/**
+ * Distributes the resources of a new game over its levels.
+ *
+ * Each resource type's quantity is divided over the levels that support it, and each level's share over square regions of the level
+ * by their area.  Every region is given its own random stream, split off the game's world stream in a fixed order, and fills itself with
+ * puddles independently of the others.  The regions are generated in parallel, but their deposits are applied in order, so the
+ * resulting world only depends on the game's seed, not on the amount of threads.
+ *
+ * @author lhunath, 2014-09-12
+ */
+class WorldGenerator {
+
+    @SuppressWarnings("UnusedDeclaration")
+    private static final Logger logger = Logger.get( WorldGenerator.class );
+
+    private static final int REGION_SIZE = 64;
+
+    private final SplittableRandom         random;
+    private final IGame.GameResourceConfig resourceConfig;
+
+    WorldGenerator(final SplittableRandom random, final IGame.GameResourceConfig resourceConfig) {
+        this.random = random;
+        this.resourceConfig = resourceConfig;
+    }
+
+    /**
+     * Deposit resources on the tiles of the given levels.
+     *
+     * @param levels The levels to distribute the resources over.
+     * @param pool   The pool to generate the regions on.
+     */
+    void generate(final List<Level> levels, final ForkJoinPool pool) {
+        // Plan the regions in a fixed order, each with its own random stream.
+        List<Region> regions = new ArrayList<>();
+        for (final ResourceType resourceType : ResourceType.values()) {
+            int quantity = resourceConfig.quantity( resourceType );
+            List<Level> supportingLevels = levels.stream()
+                                                 .filter( level -> level.getType().getSupportedResources().contains( resourceType ) )
+                                                 .collect( Collectors.toList() );
+            if (quantity <= 0 || supportingLevels.isEmpty())
+                continue;
+            Preconditions.checkArgument( resourceConfig.quantityPerTile( resourceType ) > 0,
+                                         "Resource quantity per tile must be positive: %s", resourceType );
+
+            for (int l = 0; l < supportingLevels.size(); ++l) {
+                Level level = supportingLevels.get( l );
+                int levelQuantity = quantity / supportingLevels.size() + (l < quantity % supportingLevels.size()? 1: 0);
+                planRegions( level, resourceType, levelQuantity, regions );
+            }
+        }
+
+        // Generate the regions in parallel.
+        List<int[]> deposits = pool.submit( () -> regions.parallelStream().map( Region::generate ).collect( Collectors.toList() ) )
+                                   .join();
+
+        // Apply the deposits in order.
+        for (int r = 0; r < regions.size(); ++r) {
+            Region region = regions.get( r );
+            int[] regionDeposits = deposits.get( r );
+            for (int d = 0; d < regionDeposits.length; d += 2) {
+                int index = regionDeposits[d], quantity = regionDeposits[d + 1];
+                region.level.setResourceQuantity( region.resourceType, index,
+                                                  region.level.getResources().getQuantity( region.resourceType, index ) + quantity );
+            }
+        }
+        logger.dbg( "Generated resources for %d regions of %d levels", regions.size(), levels.size() );
+    }
+
+    private void planRegions(final Level level, final ResourceType resourceType, final int levelQuantity, final List<Region> regions) {
+        int width = level.getSize().getWidth(), height = level.getSize().getHeight();
+        long levelArea = (long) width * height;
+        long plannedArea = 0;
+        int plannedQuantity = 0;
+        for (int minY = 0; minY < height; minY += REGION_SIZE)
+            for (int minX = 0; minX < width; minX += REGION_SIZE) {
+                int regionWidth = Math.min( REGION_SIZE, width - minX ), regionHeight = Math.min( REGION_SIZE, height - minY );
+
+                // Give the region its share of the level's quantity by area, rounding such that the shares add up.
+                plannedArea += regionWidth * regionHeight;
+                int regionQuantity = (int) (levelQuantity * plannedArea / levelArea) - plannedQuantity;
+                plannedQuantity += regionQuantity;
+
+                if (regionQuantity > 0)
+                    regions.add( new Region( level, resourceType, minX, minY, regionWidth, regionHeight, regionQuantity, random.split() ) );
+            }
+    }
+
+    private class Region {
+
+        private final Level            level;
+        private final ResourceType     resourceType;
+        private final int              minX;
+        private final int              minY;
+        private final int              width;
+        private final int              height;
+        private final SplittableRandom random;
+
+        private int   remaining;
+        private int[] deposits = new int[16];
+        private int   depositsSize;
+
+        Region(final Level level, final ResourceType resourceType, final int minX, final int minY, final int width, final int height,
+               final int quantity, final SplittableRandom random) {
+            this.level = level;
+            this.resourceType = resourceType;
+            this.minX = minX;
+            this.minY = minY;
+            this.width = width;
+            this.height = height;
+            this.random = random;
+            remaining = quantity;
+        }
+
+        /**
+         * @return The deposits of this region, as pairs of a tile index and the quantity to deposit on it.
+         */
+        int[] generate() {
+            int puddleSize = resourceConfig.puddleSize( resourceType );
+            int quantityPerTile = resourceConfig.quantityPerTile( resourceType );
+            while (remaining > 0) {
+                // Pick a spot in the region to start a puddle, and fill the puddle tiles with resource.
+                int puddleCenter = level.tileIndex( minX + random.nextInt( width ), minY + random.nextInt( height ) );
+                level.forEachTileInRadius( puddleCenter, puddleSize, index -> {
+                    int tileQuantity = Math.min( remaining, 1 + random.nextInt( quantityPerTile ) );
+                    if (tileQuantity > 0)
+                        deposit( index, tileQuantity );
+                } );
+            }
+
+            return Arrays.copyOf( deposits, depositsSize );
+        }
+
+        private void deposit(final int index, final int quantity) {
+            if (depositsSize == deposits.length)
+                deposits = Arrays.copyOf( deposits, depositsSize * 2 );
+
+            deposits[depositsSize++] = index;
+            deposits[depositsSize++] = quantity;
+            remaining -= quantity;
+        }
+    }
+}
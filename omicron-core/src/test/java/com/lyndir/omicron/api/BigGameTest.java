@@ -1,7 +1,10 @@
 package com.lyndir.omicron.api;
 
+import static org.testng.Assert.*;
+
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.lyndir.lhunath.opal.math.Side;
 import com.lyndir.lhunath.opal.math.Size;
 import org.testng.annotations.Test;
@@ -30,21 +33,10 @@ public class BigGameTest extends AbstractTest {
     public void testBigGame()
             throws Exception {
 
-        int[] coordinates = {
-                0, 10, 20, 30, 40, 50, 60, 70, 80, 90, 100, 110, 120, 130, 140, 150, 160, 170, 180, 190, 200, 210, 220, 230, 240, 250, 260,
-                270, 280, 290 };
-
-        ImmutableList.Builder<GameObject> gameObjectsBuilder = ImmutableList.builder();
-        for (final int x : coordinates)
-            for (final int y : coordinates)
-                gameObjectsBuilder.add( createUnit( UnitTypes.SCOUT, staticGame, staticPlayer, x, y ) );
-        for (final int x : coordinates)
-            for (final int y : coordinates)
-                createUnit( UnitTypes.SCOUT, staticGame, otherPlayer, x + 5, y + 5 );
+        ImmutableList<GameObject> gameObjects = createScouts();
 
         long startNanos = System.nanoTime();
         staticGame.getController().setReady();
-        ImmutableList<GameObject> gameObjects = gameObjectsBuilder.build();
         for (int i = 0; i < gameObjects.size(); i++) {
             GameObject gameObject = gameObjects.get( i );
             logger.dbg( "Moving gameObject %d / %d (%d%%)", i, gameObjects.size(), i * 100 / gameObjects.size() );
@@ -60,4 +52,100 @@ public class BigGameTest extends AbstractTest {
         }
         logger.inf( "Movement took %dns", System.nanoTime() - startNanos );
     }
+
+    @Test
+    public void testBigGameBatch()
+            throws Exception {
+
+        ImmutableList<GameObject> gameObjects = createScouts();
+
+        long startNanos = System.nanoTime();
+        staticGame.getController().setReady();
+        ImmutableMap.Builder<GameObject, ITile> ordersBuilder = ImmutableMap.builder();
+        for (final GameObject gameObject : gameObjects)
+            ordersBuilder.put( gameObject, gameObject.getLocation().get().neighbour( Side.E ).get() );
+        ImmutableMap<GameObject, ITile> orders = ordersBuilder.build();
+        int moved = staticPlayer.getController().moveAll( orders ).size();
+        logger.inf( "Batch movement of %d / %d objects took %dns", moved, gameObjects.size(), System.nanoTime() - startNanos );
+
+        // None of the orders conflict, so all of the objects moved to their target.
+        assertEquals( moved, gameObjects.size() );
+        for (final GameObject gameObject : gameObjects)
+            assertEquals( gameObject.getLocation().get(), orders.get( gameObject ) );
+    }
+
+    @Test
+    public void testObserveQueries()
+            throws Exception {
+
+        GameObject observer = createUnit( UnitTypes.SCOUT, staticGame, staticPlayer, 500, 500 );
+        GameObject target = createUnit( UnitTypes.SCOUT, staticGame, otherPlayer, 502, 501 );
+        BaseModule base = observer.getBaseModule();
+        Level ground = staticGame.getLevel( LevelType.GROUND );
+        int queries = 1000000, observed = 0;
+
+        long startNanos = System.nanoTime();
+        for (int q = 0; q < queries; ++q)
+            observed += base.canObserve( ground.tileAt( (q * 7919) % ground.getTileCount() ) ).isTrue()? 1: 0;
+        long tileNanos = System.nanoTime() - startNanos;
+
+        startNanos = System.nanoTime();
+        for (int q = 0; q < queries; ++q)
+            observed += base.canObserve( target ).isTrue()? 1: 0;
+        long objectNanos = System.nanoTime() - startNanos;
+
+        logger.inf( "Tile observation: %d queries/s, object observation: %d queries/s (%d observed)", //
+                    queries * 1000000000L / tileNanos, queries * 1000000000L / objectNanos, observed );
+    }
+
+    @Test
+    public void testEventDispatch()
+            throws Exception {
+
+        GameObject gameObject = createUnit( UnitTypes.SCOUT, staticGame, staticPlayer, 500, 500 );
+        Tile tile = gameObject.getLocation().get();
+        Change<ITile> location = Change.<ITile>from( tile ).to( tile );
+        int[] received = new int[1];
+        int listeners = 0, events = 100000;
+
+        for (final int listenerCount : new int[]{ 1, 10, 100 }) {
+            for (; listeners < listenerCount; ++listeners)
+                staticGame.getController().addGameListener( new GameListener() {
+                    @Override
+                    public void onUnitMoved(final IGameObject movedObject, final Change<ITile> movedLocation) {
+                        ++received[0];
+                    }
+                } );
+
+            received[0] = 0;
+            long startNanos = System.nanoTime();
+            for (int e = 0; e < events; ++e)
+                staticGame.getController().fireIfObservable( tile ).onUnitMoved( gameObject, location );
+            long nanos = System.nanoTime() - startNanos;
+
+            assertEquals( received[0], events * listenerCount );
+            logger.inf( "Event dispatch to %d listeners: %d events/s", listenerCount, events * 1000000000L / nanos );
+        }
+    }
+
+    /**
+     * Create a grid of scouts for our player and one for the other player, each of the other player's scouts a few tiles off one of ours.
+     *
+     * @return Our player's scouts.
+     */
+    private ImmutableList<GameObject> createScouts() {
+        int[] coordinates = {
+                0, 10, 20, 30, 40, 50, 60, 70, 80, 90, 100, 110, 120, 130, 140, 150, 160, 170, 180, 190, 200, 210, 220, 230, 240, 250, 260,
+                270, 280, 290 };
+
+        ImmutableList.Builder<GameObject> gameObjects = ImmutableList.builder();
+        for (final int x : coordinates)
+            for (final int y : coordinates)
+                gameObjects.add( createUnit( UnitTypes.SCOUT, staticGame, staticPlayer, x, y ) );
+        for (final int x : coordinates)
+            for (final int y : coordinates)
+                createUnit( UnitTypes.SCOUT, staticGame, otherPlayer, x + 5, y + 5 );
+
+        return gameObjects.build();
+    }
 }
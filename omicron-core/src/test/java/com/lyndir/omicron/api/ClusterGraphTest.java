@@ -0,0 +1,117 @@
+package com.lyndir.omicron.api;
+
+import static org.testng.Assert.*;
+
+import com.lyndir.lhunath.opal.math.Size;
+import com.lyndir.omicron.api.util.IndexPath;
+import com.lyndir.omicron.api.util.PathUtils;
+import java.util.Optional;
+import org.testng.annotations.Test;
+
+
+/**
+ * @author lhunath, 2014-09-19
+ */
+public class ClusterGraphTest extends AbstractTest {
+
+    @Override
+    protected Game.Builder newGameBuilder() {
+        Game.Builder builder = super.newGameBuilder();
+        builder.setLevelSize( new Size( 100, 100 ) );
+        return builder;
+    }
+
+    @Override
+    protected void printWorldMap() {
+    }
+
+    @Test
+    public void testFindRoute()
+            throws Exception {
+
+        // A wall down the middle of the level with a gap at the bottom.
+        Level ground = staticGame.getLevel( LevelType.GROUND );
+        for (int y = 0; y < 90; ++y)
+            createUnit( UnitTypes.SCOUT, 50, y );
+        createUnit( UnitTypes.SCOUT, 10, 10 );
+        int root = ground.tileIndex( 10, 10 ), target = ground.tileIndex( 90, 10 );
+
+        // The route goes around the wall, close to the shortest path.
+        double shortest = PathUtils.findShortest( ground, root, target, //
+                                                  (fromIndex, toIndex) -> ground.getContents( toIndex ) == null? 1: Double.MAX_VALUE, 1,
+                                                  Double.MAX_VALUE ).get().getCost();
+        ClusterGraph.Route route = ground.getClusterGraph().findRoute( root, target, Integer.MAX_VALUE ).get();
+        assertEquals( route.getWaypoints().getRootIndex(), root );
+        assertEquals( route.getWaypoints().getTargetIndex(), target );
+        assertTrue( route.getWaypoints().getCost() >= shortest );
+        assertTrue( route.getWaypoints().getCost() <= shortest * 1.5, route.getWaypoints() + " vs. " + shortest );
+
+        // Each leg refines into free tiles from one waypoint to the next.
+        double refinedSteps = 0;
+        for (int leg = 0; leg < route.getLegCount(); ++leg) {
+            IndexPath tiles = route.getLeg( leg ).get();
+            assertEquals( tiles.getRootIndex(), route.getWaypoints().getIndex( leg ) );
+            assertEquals( tiles.getTargetIndex(), route.getWaypoints().getIndex( leg + 1 ) );
+            for (int step = 1; step < tiles.getLength(); ++step)
+                assertNull( ground.getContents( tiles.getIndex( step ) ) );
+            refinedSteps += tiles.getCost();
+        }
+        assertTrue( refinedSteps >= shortest );
+        assertTrue( refinedSteps <= route.getWaypoints().getCost() );
+
+        // Closing the gap updates the clusters around it.
+        GameObject[] gap = new GameObject[10];
+        for (int y = 90; y < 100; ++y)
+            gap[y - 90] = createUnit( UnitTypes.SCOUT, 50, y );
+        assertFalse( ground.getClusterGraph().findRoute( root, target, Integer.MAX_VALUE ).isPresent() );
+
+        // Opening it again too.
+        gap[5].getController().die();
+        Optional<ClusterGraph.Route> reopenedRoute = ground.getClusterGraph().findRoute( root, target, Integer.MAX_VALUE );
+        assertTrue( reopenedRoute.isPresent() );
+        assertTrue( reopenedRoute.get().getWaypoints().getCost() >= shortest );
+        assertFalse( ground.getClusterGraph().findRoute( root, target, (int) shortest - 1 ).isPresent() );
+    }
+
+    @Test
+    public void testFindRouteInView()
+            throws Exception {
+
+        Game.Builder builder = newGameBuilder();
+        Player otherPlayer = builder.addPlayer( null, Player.randomName(), Color.random(), Color.random() );
+        staticGame = builder.build();
+
+        // A wall of another player's units down the middle of the level, with a gap at the bottom, out of our sight.
+        Level ground = staticGame.getLevel( LevelType.GROUND );
+        for (int y = 0; y < 90; ++y)
+            createUnit( UnitTypes.SCOUT, staticGame, otherPlayer, 50, y );
+        createUnit( UnitTypes.SCOUT, 10, 10 );
+        int root = ground.tileIndex( 10, 10 ), target = ground.tileIndex( 90, 10 );
+
+        // We plan straight through the wall we cannot see, while the actual occupancy takes the gap.
+        double actual = ground.getClusterGraph().findRoute( root, target, Integer.MAX_VALUE ).get().getWaypoints().getCost();
+        ClusterGraph.Route route = ground.getClusterGraph( staticPlayer ).findRoute( root, target, Integer.MAX_VALUE ).get();
+        assertTrue( route.getWaypoints().getCost() < actual, route.getWaypoints() + " vs. " + actual );
+
+        // Watchers in the sky show us the wall without changing the ground: our routes now take the gap too.
+        long groundVersion = ground.getVersion();
+        for (int y = 5; y < 90; y += 20)
+            createUnit( testUnitType( "Watcher", BaseModule.createWithStandardResourceCost()
+                                                           .maxHealth( 1 )
+                                                           .armor( 1 )
+                                                           .viewRange( 10 )
+                                                           .supportedLayers( LevelType.values() ) ), staticGame, staticPlayer,
+                        Tile.cast( staticGame.getLevel( LevelType.SKY ).getTile( 50, y ).get() ) );
+        assertEquals( ground.getVersion(), groundVersion );
+        double shortest = PathUtils.findShortest( ground, root, target, //
+                                                  (fromIndex, toIndex) -> ground.getContents( toIndex ) == null? 1: Double.MAX_VALUE, 1,
+                                                  Double.MAX_VALUE ).get().getCost();
+        ClusterGraph.Route seenRoute = ground.getClusterGraph( staticPlayer ).findRoute( root, target, Integer.MAX_VALUE ).get();
+        assertTrue( seenRoute.getWaypoints().getCost() >= shortest, seenRoute.getWaypoints() + " vs. " + shortest );
+        for (int leg = 0; leg < seenRoute.getLegCount(); ++leg) {
+            IndexPath tiles = seenRoute.getLeg( leg ).get();
+            for (int step = 1; step < tiles.getLength(); ++step)
+                assertNull( ground.getContents( tiles.getIndex( step ) ) );
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.lyndir.omicron.api;
+
+import static org.testng.Assert.*;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.lyndir.lhunath.opal.math.Side;
+import com.lyndir.lhunath.opal.math.Size;
+import com.lyndir.lhunath.opal.math.Vec2;
+import com.lyndir.omicron.api.util.RadiusOffsets;
+import java.util.*;
+import org.testng.annotations.Test;
+
+
+public class LevelTest extends AbstractTest {
+
+    @Test
+    public void testTileIndex()
+            throws Exception {
+
+        Level level = (Level) staticGame.getLevel( LevelType.GROUND );
+        int width = level.getSize().getWidth();
+
+        for (int x = 0; x < width; ++x)
+            for (int y = 0; y < level.getSize().getHeight(); ++y) {
+                Tile tile = level.getTile( x, y ).get();
+                assertEquals( tile.getPosition(), Vec2.create( x, y ) );
+                assertEquals( tile.getIndex(), y * width + x );
+                assertEquals( level.tileIndex( tile.getPosition() ), tile.getIndex() );
+                assertSame( level.tileAt( tile.getIndex() ), tile );
+                assertSame( level.getTile( Vec2.create( x, y ) ).get(), tile );
+                assertSame( level.getTilesByPosition().get( tile.getPosition() ), tile );
+            }
+
+        assertEquals( level.tileIndex( -1, 0 ), -1 );
+        assertEquals( level.tileIndex( width, 0 ), -1 );
+        assertEquals( level.tileIndex( 0, level.getSize().getHeight() ), -1 );
+        assertFalse( level.getTile( -1, 0 ).isPresent() );
+        assertFalse( level.getTile( Vec2.create( 0, -1 ) ).isPresent() );
+    }
+
+    @Test
+    public void testNeighbour()
+            throws Exception {
+
+        Level level = (Level) staticGame.getLevel( LevelType.GROUND );
+        Tile tile = level.getTile( 5, 5 ).get();
+
+        for (final Side side : Side.values())
+            assertEquals( tile.neighbour( side ).get().getPosition(), tile.getPosition().translate( side.getDelta() ) );
+        assertEquals( tile.neighbours().size(), Side.values().length );
+
+        Tile corner = level.getTile( 0, 0 ).get();
+        int inBounds = 0;
+        for (final Side side : Side.values())
+            if (level.getSize().isInBounds( corner.getPosition().translate( side.getDelta() ) ))
+                ++inBounds;
+        assertEquals( corner.neighbours().size(), inBounds );
+
+        // Visiting neighbours finds the same tiles as collecting them.
+        List<ITile> visited = new ArrayList<>();
+        corner.forEachNeighbour( visited::add );
+        assertEquals( visited, corner.neighbours().asList() );
+        List<Integer> visitedIndexes = new ArrayList<>();
+        level.forEachNeighbour( corner.getIndex(), visitedIndexes::add );
+        assertEquals( visitedIndexes.size(), inBounds );
+        for (final ITile neighbour : visited)
+            assertTrue( visitedIndexes.contains( neighbour.getIndex() ) );
+    }
+
+    @Test
+    public void testRadius()
+            throws Exception {
+
+        Level level = (Level) staticGame.getLevel( LevelType.GROUND );
+        int width = level.getSize().getWidth(), height = level.getSize().getHeight();
+        Tile center = level.getTile( 5, 5 ).get();
+
+        // Away from the edges, discs and rings hold the full amount of tiles, each at the right distance.
+        for (int radius = 0; radius <= 4; ++radius) {
+            final int r = radius;
+            Set<Integer> disc = new HashSet<>();
+            level.forEachTileInRadius( center.getIndex(), radius, index -> {
+                assertTrue( RadiusOffsets.distance( index % width - 5, index / width - 5 ) <= r );
+                disc.add( index );
+            } );
+            assertEquals( disc.size(), RadiusOffsets.discSize( radius ) );
+            assertEquals( center.neighbours( radius ).size(), disc.size() );
+
+            List<Integer> ring = new ArrayList<>();
+            level.forEachTileAtRadius( center.getIndex(), radius, index -> {
+                assertEquals( RadiusOffsets.distance( index % width - 5, index / width - 5 ), r );
+                ring.add( index );
+            } );
+            assertEquals( ring.size(), radius == 0? 1: 6 * radius );
+        }
+
+        // The ring at distance one holds the neighbours.
+        Set<Integer> ring = new HashSet<>();
+        level.forEachTileAtRadius( center.getIndex(), 1, ring::add );
+        Set<Integer> neighbours = new HashSet<>();
+        level.forEachNeighbour( center.getIndex(), neighbours::add );
+        assertEquals( ring, neighbours );
+
+        // Near the edges, tiles outside of the level are skipped.
+        Tile corner = level.getTile( 0, 0 ).get();
+        Set<Integer> clipped = new HashSet<>();
+        level.forEachTileInRadius( corner.getIndex(), 3, clipped::add );
+        int inBounds = 0;
+        for (int x = 0; x < width; ++x)
+            for (int y = 0; y < height; ++y)
+                if (RadiusOffsets.distance( x, y ) <= 3)
+                    ++inBounds;
+        assertEquals( clipped.size(), inBounds );
+        assertEquals( corner.neighbours( 3 ).size(), inBounds );
+    }
+
+    @Test
+    public void testObjectIndex()
+            throws Exception {
+
+        Level level = (Level) staticGame.getLevel( LevelType.GROUND );
+        Tile center = level.getTile( 5, 5 ).get();
+        GameObject near = createUnit( testUnitType( "Near" ), 5, 6 );
+        GameObject container = createUnit( testUnitType( "Container", ContainerModule.createWithStandardResourceCost()
+                                                                                     .resourceType( ResourceType.METALS )
+                                                                                     .capacity( 10 ) ), 7, 5 );
+        GameObject far = createUnit( testUnitType( "Far" ), 0, 0 );
+
+        // Radius queries only find objects at most the radius away, filtered by owner and module type.
+        assertEquals( ImmutableSet.copyOf( level.getObjectsInRadius( center.getIndex(), 1, null, null ) ), ImmutableSet.of( near ) );
+        assertEquals( ImmutableSet.copyOf( level.getObjectsInRadius( center.getIndex(), 2, staticPlayer, null ) ),
+                      ImmutableSet.of( near, container ) );
+        assertEquals( level.getObjectsInRadius( center.getIndex(), 2, null, ModuleType.CONTAINER ), ImmutableList.of( container ) );
+        assertEquals( ImmutableSet.copyOf( level.getObjectsInRect( 0, 0, 5, 6, null, null ) ), ImmutableSet.of( near, far ) );
+
+        // Moving and dying objects update the index.
+        near.getController().setLocation( level.getTile( 9, 9 ).get() );
+        assertTrue( level.getObjectsInRadius( center.getIndex(), 1, null, null ).isEmpty() );
+        assertEquals( level.getObjectsInRect( 9, 9, 9, 9, null, null ), ImmutableList.of( near ) );
+        container.getController().die();
+        assertTrue( level.getObjectsInRadius( center.getIndex(), 2, null, ModuleType.CONTAINER ).isEmpty() );
+    }
+
+    @Test
+    public void testChunkVersions()
+            throws Exception {
+
+        Level level = new Level( new Size( 70, 40 ), LevelType.GROUND, IGame.LevelDensity.DENSE );
+        assertEquals( level.getChunkCount(), 3 * 2 );
+        assertEquals( level.chunkIndex( level.tileIndex( 69, 39 ) ), 5 );
+        int chunkTiles = 0;
+        for (int chunk = 0; chunk < level.getChunkCount(); ++chunk) {
+            final int c = chunk;
+            int[] tiles = { 0 };
+            level.forEachTileInChunk( chunk, index -> {
+                assertEquals( level.chunkIndex( index ), c );
+                ++tiles[0];
+            } );
+            chunkTiles += tiles[0];
+        }
+        assertEquals( chunkTiles, 70 * 40 );
+
+        // Only chunks with changes after a version are reported for that version.
+        long version = level.getVersion();
+        assertEquals( level.changedChunks( version ).count(), 0 );
+        level.setResourceQuantity( ResourceType.METALS, level.tileIndex( 40, 5 ), 10 );
+        assertEquals( level.changedChunks( version ).toArray(), new int[]{ 1 } );
+
+        long nextVersion = level.getVersion();
+        assertTrue( nextVersion > version );
+        level.setContents( level.tileIndex( 5, 35 ), null );
+        assertEquals( level.changedChunks( nextVersion ).toArray(), new int[]{ 3 } );
+        assertEquals( level.changedChunks( version ).toArray(), new int[]{ 1, 3 } );
+    }
+
+    @Test
+    public void testSparseLevel()
+            throws Exception {
+
+        Level level = (Level) staticGame.getLevel( LevelType.SKY );
+        assertEquals( level.getDensity(), IGame.LevelDensity.SPARSE );
+
+        // Tiles of a sparse level are created on demand but behave as the same tile.
+        Tile tile = level.getTile( 3, 4 ).get();
+        Tile sameTile = level.tileAt( tile.getIndex() );
+        assertEquals( sameTile, tile );
+        assertEquals( sameTile.hashCode(), tile.hashCode() );
+
+        // State placed through one instance is visible through the other.
+        GameObject gameObject = createUnit( testUnitType( "Sky Unit" ), staticGame, staticPlayer, tile );
+        assertEquals( sameTile.getContents().get(), gameObject );
+        tile.setResourceQuantity( ResourceType.FUEL, 5 );
+        assertEquals( (int) sameTile.getResourceQuantity( ResourceType.FUEL ).get(), 5 );
+        assertEquals( gameObject.getLocation().get(), sameTile );
+    }
+}
@@ -2,8 +2,12 @@ package com.lyndir.omicron.api;
 
 import static org.testng.AssertJUnit.*;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.lyndir.lhunath.opal.math.*;
+import com.lyndir.omicron.api.util.PathUtils;
+import com.lyndir.omicron.api.util.Reachability;
+import java.util.*;
 import org.testng.annotations.Test;
 
 
@@ -168,4 +172,367 @@ public class MobilityModuleTest extends AbstractTest {
         assertEquals( Vec2.create( 0, 5 ), mover.getLocation().get().getPosition() );
         assertEquals( 3d, mover.onModule( ModuleType.MOBILITY, 0, MobilityModule::getRemainingSpeed ) );
     }
+
+    @Test
+    public void testLevelingDetour()
+            throws Exception {
+
+        GameObject mover = createFlier( 0, 0 );
+        staticGame.getController().setReady();
+
+        // Modules with the same costs share their cost tables.
+        assertSame( MobilityCosts.of( ImmutableMap.of( LevelType.GROUND, 3d, LevelType.SKY, 1d ), //
+                                      ImmutableMap.of( LevelType.GROUND, 1d ) ),
+                    MobilityCosts.of( ImmutableMap.of( LevelType.SKY, 1d, LevelType.GROUND, 3d ), //
+                                      ImmutableMap.of( LevelType.GROUND, 1d ) ) );
+
+        // Walking along the ground is too slow, but flying there is cheap: climb, fly and descend.
+        MobilityModule.Movement movement = mover.onModule( ModuleType.MOBILITY, 0, module -> module.movement(
+                staticGame.getLevel( LevelType.GROUND ).getTile( Vec2.create( 8, 0 ) ).get() ) );
+        assertTrue( movement.isPossible() );
+        assertEquals( 10d, movement.getCost() );
+        int skyTiles = 0;
+        for (PathUtils.Path<ITile> step = movement.getPath(); step != null; step = step.getParent().orElse( null ))
+            if (step.getTarget().getLevel().getType() == LevelType.SKY)
+                ++skyTiles;
+        assertEquals( 9, skyTiles );
+
+        // The mover levels up, flies within the sky and levels back down, with an event for each.
+        List<String> events = new ArrayList<>();
+        staticGame.getController().addGameListener( new GameListener() {
+            @Override
+            public void onMobilityLeveled(final IMobilityModule mobilityModule, final Change<ITile> location,
+                                          final ChangeDbl remainingSpeed) {
+                events.add( "leveled to " + location.getTo().getLevel().getType() + " at " + remainingSpeed.getTo() );
+            }
+
+            @Override
+            public void onMobilityMoved(final IMobilityModule mobilityModule, final Change<ITile> location,
+                                        final ChangeDbl remainingSpeed) {
+                events.add( "moved to " + location.getTo().getPosition() + " at " + remainingSpeed.getTo() );
+            }
+        } );
+        movement.execute();
+        assertEquals( ImmutableList.of( "leveled to SKY at 19.0", "moved to " + Vec2.create( 8, 0 ) + " at 11.0",
+                                        "leveled to GROUND at 10.0" ), events );
+        assertEquals( LevelType.GROUND, mover.getLocation().get().getLevel().getType() );
+        assertEquals( Vec2.create( 8, 0 ), mover.getLocation().get().getPosition() );
+        assertEquals( 10d, mover.onModule( ModuleType.MOBILITY, 0, MobilityModule::getRemainingSpeed ) );
+    }
+
+    @Test
+    public void testPathInvalidated()
+            throws Exception {
+
+        // A level of several chunks, so changes can happen away from the chunks a path crosses.
+        Game.Builder builder = newGameBuilder();
+        builder.setLevelSize( new Size( 2 * ILevel.CHUNK_SIZE, 2 * ILevel.CHUNK_SIZE ) );
+        Player otherPlayer = builder.addPlayer( null, Player.randomName(), Color.random(), Color.random() );
+        staticGame = builder.build();
+
+        GameObject mover = createMover( 0, 0 );
+        staticGame.getController().setReady();
+        Level ground = staticGame.getLevel( LevelType.GROUND );
+        MobilityModule module = mover.getModule( ModuleType.MOBILITY, 0 ).get();
+
+        // A movement can't be executed once a tile of its path is taken.
+        MobilityModule.Movement movement = module.movement( ground.getTile( 4, 0 ).get() );
+        assertEquals( 4d, movement.getCost() );
+        GameObject blocker = createUnit( UnitTypes.SCOUT, 2, 0 );
+        try {
+            movement.execute();
+            assertFalse( true );
+        }
+        catch (final IMobilityModuleController.PathInvalidatedException ignored) {
+        }
+        assertEquals( Vec2.create( 0, 0 ), mover.getLocation().get().getPosition() );
+
+        // Changes in chunks its path doesn't cross don't make it check its path again.
+        movement = module.movement( ground.getTile( 4, 0 ).get() );
+        assertEquals( 5d, movement.getCost() );
+        createUnit( UnitTypes.SCOUT, staticGame, otherPlayer, ILevel.CHUNK_SIZE + 8, ILevel.CHUNK_SIZE + 8 );
+        assertTrue( movement.isUnchanged() );
+
+        // Changes in what the owner observes do, even far away: the path was only accessible for what the owner observed.
+        createUnit( testUnitType( "Watcher", BaseModule.createWithStandardResourceCost()
+                                                       .maxHealth( 1 )
+                                                       .armor( 1 )
+                                                       .viewRange( 1 )
+                                                       .supportedLayers( LevelType.values() ) ), staticGame, staticPlayer,
+                    Tile.cast( staticGame.getLevel( LevelType.SKY ).getTile( ILevel.CHUNK_SIZE + 8, 8 ).get() ) );
+        assertFalse( movement.isUnchanged() );
+
+        // Changes near its path that leave the path free don't stop it, though it does check its path again.
+        blocker.getController().die();
+        assertFalse( movement.isUnchanged() );
+        movement.execute();
+        assertEquals( Vec2.create( 4, 0 ), mover.getLocation().get().getPosition() );
+    }
+
+    @Test
+    public void testReachableTiles()
+            throws Exception {
+
+        GameObject mover = createUnit( testUnitType( "Mover", BaseModule.createWithStandardResourceCost()
+                                                                        .maxHealth( 1 )
+                                                                        .armor( 1 )
+                                                                        .viewRange( 10 )
+                                                                        .supportedLayers( LevelType.values() ),
+                                                     MobilityModule.createWithStandardResourceCost()
+                                                                   .movementSpeed( 3 )
+                                                                   .movementCost( ImmutableMap.of( LevelType.GROUND, 1d ) )
+                                                                   .levelingCost( ImmutableMap.<LevelType, Double>of() ) ) );
+        staticGame.getController().setReady();
+        Level ground = staticGame.getLevel( LevelType.GROUND );
+
+        // From the corner, the mover reaches every tile up to three steps away.
+        Reachability reachability = mover.onModule( ModuleType.MOBILITY, 0, MobilityModule::reachableTiles );
+        assertEquals( 10, reachability.size() );
+        for (int x = 0; x < 5; ++x)
+            for (int y = 0; y < 5; ++y) {
+                int index = ground.tileIndex( x, y );
+                assertEquals( x + y <= 3, reachability.isReachable( index ) );
+                if (x + y <= 3)
+                    assertEquals( (double) (x + y), reachability.getCost( index ) );
+            }
+        assertEquals( -1, reachability.getParent( ground.tileIndex( 0, 0 ) ) );
+        assertEquals( 3d, reachability.pathTo( ground.tileIndex( 1, 2 ) ).get().getCost() );
+        assertFalse( reachability.pathTo( ground.tileIndex( 2, 2 ) ).isPresent() );
+
+        // Movement reuses the reachable tiles while nothing changed.
+        assertSame( reachability, mover.onModule( ModuleType.MOBILITY, 0, MobilityModule::reachableTiles ) );
+        MobilityModule.Movement movement = mover.onModule( ModuleType.MOBILITY, 0, module -> module.movement(
+                ground.getTile( Vec2.create( 1, 0 ) ).get() ) );
+        assertTrue( movement.isPossible() );
+        assertEquals( 1d, movement.getCost() );
+        assertFalse( mover.onModule( ModuleType.MOBILITY, 0, module -> module.movement( ground.getTile( Vec2.create( 2, 2 ) ).get() ) )
+                          .isPossible() );
+
+        // Once the mover moved, the reachable tiles are found again from its new location.
+        movement.execute();
+        Reachability movedReachability = mover.onModule( ModuleType.MOBILITY, 0, MobilityModule::reachableTiles );
+        assertNotSame( reachability, movedReachability );
+        assertEquals( ground.tileIndex( 1, 0 ), movedReachability.getRootIndex() );
+        assertEquals( 2d, movedReachability.getMaxCost() );
+        assertTrue( movedReachability.isReachable( ground.tileIndex( 1, 2 ) ) );
+        assertFalse( movedReachability.isReachable( ground.tileIndex( 1, 3 ) ) );
+    }
+
+    @Test
+    public void testReachableTilesVisibility()
+            throws Exception {
+
+        GameObject mover = createUnit( testUnitType( "Short-sighted Mover", BaseModule.createWithStandardResourceCost()
+                                                                                      .maxHealth( 1 )
+                                                                                      .armor( 1 )
+                                                                                      .viewRange( 1 )
+                                                                                      .supportedLayers( LevelType.values() ),
+                                                     MobilityModule.createWithStandardResourceCost()
+                                                                   .movementSpeed( 3 )
+                                                                   .movementCost( ImmutableMap.of( LevelType.GROUND, 1d ) )
+                                                                   .levelingCost( ImmutableMap.<LevelType, Double>of() ) ) );
+        staticGame.getController().setReady();
+        Level ground = staticGame.getLevel( LevelType.GROUND );
+
+        // The mover only reaches the tiles its owner observes.
+        Reachability reachability = mover.onModule( ModuleType.MOBILITY, 0, MobilityModule::reachableTiles );
+        assertFalse( reachability.isReachable( ground.tileIndex( 2, 0 ) ) );
+
+        // A watcher in the sky changes what the owner observes on the ground, without changing the ground.
+        long groundVersion = ground.getVersion();
+        createUnit( testUnitType( "Watcher", BaseModule.createWithStandardResourceCost()
+                                                       .maxHealth( 1 )
+                                                       .armor( 1 )
+                                                       .viewRange( 3 )
+                                                       .supportedLayers( LevelType.values() ) ), staticGame, staticPlayer,
+                    Tile.cast( staticGame.getLevel( LevelType.SKY ).getTile( 2, 0 ).get() ) );
+        assertEquals( groundVersion, ground.getVersion() );
+        Reachability watchedReachability = mover.onModule( ModuleType.MOBILITY, 0, MobilityModule::reachableTiles );
+        assertNotSame( reachability, watchedReachability );
+        assertTrue( watchedReachability.isReachable( ground.tileIndex( 2, 0 ) ) );
+        assertEquals( 3d, watchedReachability.getCost( ground.tileIndex( 3, 0 ) ) );
+    }
+
+    @Test
+    public void testMoveAll()
+            throws Exception {
+
+        GameObject first = createMover( 0, 0 );
+        GameObject second = createMover( 2, 0 );
+        GameObject third = createMover( 0, 4 );
+        GameObject flier = createFlier( 0, 9 );
+        staticGame.getController().setReady();
+        Level ground = staticGame.getLevel( LevelType.GROUND );
+        Level sky = staticGame.getLevel( LevelType.SKY );
+
+        // The events of the units and tiles are held back along with those of their mobility, until the flier, last of all, is done.
+        int[] moved = { 0 };
+        List<ITile> flierLocations = new ArrayList<>();
+        staticGame.getController().addGameListener( new GameListener() {
+            @Override
+            public void onMobilityMoved(final IMobilityModule mobilityModule, final Change<ITile> location, final ChangeDbl remainingSpeed) {
+                ++moved[0];
+            }
+
+            @Override
+            public void onUnitMoved(final IGameObject gameObject, final Change<ITile> location) {
+                flierLocations.add( flier.getLocation().get() );
+            }
+
+            @Override
+            public void onTileContents(final ITile tile, final Change<IGameObject> contents) {
+                flierLocations.add( flier.getLocation().get() );
+            }
+        } );
+
+        // The first and second mover both want (1, 0): the first has the lowest ID and wins.  The third is out of range.
+        // The flier climbs into the sky, where none of the player's objects are, and moves over the positions it observes from the ground.
+        ImmutableMap<GameObject, MobilityModule.Movement> movements = staticPlayer.getController().moveAll(
+                ImmutableMap.of( second, ground.getTile( 1, 0 ).get(), first, ground.getTile( 1, 0 ).get(), //
+                                 third, ground.getTile( 9, 9 ).get(), flier, sky.getTile( 1, 9 ).get() ) );
+        assertEquals( ImmutableList.of( first, flier ), movements.keySet().asList() );
+        assertEquals( 1d, movements.get( first ).getCost() );
+        assertEquals( 2d, movements.get( flier ).getCost() );
+        assertEquals( 2, moved[0] );
+        assertFalse( flierLocations.isEmpty() );
+        assertEquals( Collections.nCopies( flierLocations.size(), sky.getTile( 1, 9 ).get() ), flierLocations );
+        assertEquals( Vec2.create( 1, 0 ), first.getLocation().get().getPosition() );
+        assertEquals( Vec2.create( 2, 0 ), second.getLocation().get().getPosition() );
+        assertEquals( Vec2.create( 0, 4 ), third.getLocation().get().getPosition() );
+        assertEquals( sky.getTile( 1, 9 ).get(), flier.getLocation().get() );
+        assertEquals( 4d, first.onModule( ModuleType.MOBILITY, 0, MobilityModule::getRemainingSpeed ) );
+        assertEquals( 5d, second.onModule( ModuleType.MOBILITY, 0, MobilityModule::getRemainingSpeed ) );
+        assertEquals( 18d, flier.onModule( ModuleType.MOBILITY, 0, MobilityModule::getRemainingSpeed ) );
+    }
+
+    @Test
+    public void testGoTo()
+            throws Exception {
+
+        GameObject mover = createMover( 0, 0 );
+        staticGame.getController().setReady();
+        Level ground = staticGame.getLevel( LevelType.GROUND );
+        MobilityModule module = mover.getModule( ModuleType.MOBILITY, 0 ).get();
+
+        // The mover walks as far as its speed allows each turn.
+        assertTrue( module.goTo( ground.getTile( 9, 0 ).get() ) );
+        assertEquals( ground.getTile( 9, 0 ).get(), module.getGoToTarget().get() );
+        assertEquals( Vec2.create( 0, 0 ), mover.getLocation().get().getPosition() );
+        staticGame.getController().setReady();
+        assertEquals( Vec2.create( 5, 0 ), mover.getLocation().get().getPosition() );
+
+        // It works its way around a tile that became blocked, which takes one step more than the four that are left.
+        createUnit( UnitTypes.SCOUT, 7, 0 );
+        staticGame.getController().setReady();
+        assertEquals( Vec2.create( 9, 0 ), mover.getLocation().get().getPosition() );
+        assertEquals( 0d, module.getRemainingSpeed() );
+        assertFalse( module.getGoToTarget().isPresent() );
+
+        // An order to an unreachable tile is refused.
+        assertFalse( module.goTo( ground.getTile( 7, 0 ).get() ) );
+        assertFalse( module.getGoToTarget().isPresent() );
+    }
+
+    @Test
+    public void testGoToFog()
+            throws Exception {
+
+        Game.Builder builder = newGameBuilder();
+        Player otherPlayer = builder.addPlayer( null, Player.randomName(), Color.random(), Color.random() );
+        staticGame = builder.build();
+
+        GameObject mover = createUnit( testUnitType( "Short-sighted Mover", BaseModule.createWithStandardResourceCost()
+                                                                                      .maxHealth( 1 )
+                                                                                      .armor( 1 )
+                                                                                      .viewRange( 2 )
+                                                                                      .supportedLayers( LevelType.values() ),
+                                                     MobilityModule.createWithStandardResourceCost()
+                                                                   .movementSpeed( 5 )
+                                                                   .movementCost( ImmutableMap.of( LevelType.GROUND, 1d ) )
+                                                                   .levelingCost( ImmutableMap.<LevelType, Double>of() ) ), 0, 0 );
+        createUnit( UnitTypes.SCOUT, staticGame, otherPlayer, 9, 0 );
+        staticGame.getController().setReady();
+        Level ground = staticGame.getLevel( LevelType.GROUND );
+        MobilityModule module = mover.getModule( ModuleType.MOBILITY, 0 ).get();
+
+        // The order to a tile the mover cannot see is taken, even though another player's unit stands on it.
+        assertTrue( module.goTo( ground.getTile( 9, 0 ).get() ) );
+
+        // The mover only steps onto tiles it can see, so it gets two tiles further each turn.
+        staticGame.getController().setReady();
+        assertEquals( Vec2.create( 2, 0 ), mover.getLocation().get().getPosition() );
+        staticGame.getController().setReady();
+        staticGame.getController().setReady();
+        staticGame.getController().setReady();
+        assertEquals( Vec2.create( 8, 0 ), mover.getLocation().get().getPosition() );
+        assertTrue( module.getGoToTarget().isPresent() );
+
+        // Next to the target, it sees that the target is occupied and gives up.
+        staticGame.getController().setReady();
+        assertEquals( Vec2.create( 8, 0 ), mover.getLocation().get().getPosition() );
+        assertFalse( module.getGoToTarget().isPresent() );
+        assertFalse( module.goTo( ground.getTile( 9, 0 ).get() ) );
+    }
+
+    @Test
+    public void testLevelingOntoOccupiedTile()
+            throws Exception {
+
+        GameObject flier = createFlier( 0, 0 );
+        GameObject mover = createMover( 0, 5 );
+        staticGame.getController().setReady();
+        Level ground = staticGame.getLevel( LevelType.GROUND );
+        Level sky = staticGame.getLevel( LevelType.SKY );
+        MobilityModule module = flier.getModule( ModuleType.MOBILITY, 0 ).get();
+        GameObject blocker = createUnit( testUnitType( "Balloon", BaseModule.createWithStandardResourceCost()
+                                                                            .maxHealth( 1 )
+                                                                            .armor( 1 )
+                                                                            .viewRange( 1 )
+                                                                            .supportedLayers( LevelType.values() ) ), staticGame,
+                                         staticPlayer, Tile.cast( sky.getTile( 0, 0 ).get() ) );
+
+        // A standing order into the sky waits while the tile above the flier is taken.
+        assertTrue( module.goTo( sky.getTile( 3, 0 ).get() ) );
+        staticGame.getController().setReady();
+        assertEquals( ground.getTile( 0, 0 ).get(), flier.getLocation().get() );
+        assertTrue( module.getGoToTarget().isPresent() );
+
+        // A batch move leaves the flier where it is, and still moves the other objects.
+        ImmutableMap<GameObject, MobilityModule.Movement> movements = staticPlayer.getController().moveAll(
+                ImmutableMap.of( flier, sky.getTile( 1, 0 ).get(), mover, ground.getTile( 1, 5 ).get() ) );
+        assertEquals( ImmutableList.of( mover ), movements.keySet().asList() );
+        assertEquals( ground.getTile( 0, 0 ).get(), flier.getLocation().get() );
+        assertEquals( 20d, module.getRemainingSpeed() );
+        assertEquals( Vec2.create( 1, 5 ), mover.getLocation().get().getPosition() );
+
+        // Once the tile is free, the order goes ahead.
+        blocker.getController().die();
+        staticGame.getController().setReady();
+        assertEquals( sky.getTile( 3, 0 ).get(), flier.getLocation().get() );
+        assertFalse( module.getGoToTarget().isPresent() );
+    }
+
+    private GameObject createMover(final int x, final int y) {
+        return createUnit( testUnitType( "Mover", BaseModule.createWithStandardResourceCost()
+                                                            .maxHealth( 1 )
+                                                            .armor( 1 )
+                                                            .viewRange( 10 )
+                                                            .supportedLayers( LevelType.values() ),
+                                         MobilityModule.createWithStandardResourceCost()
+                                                       .movementSpeed( 5 )
+                                                       .movementCost( ImmutableMap.of( LevelType.GROUND, 1d ) )
+                                                       .levelingCost( ImmutableMap.<LevelType, Double>of() ) ), x, y );
+    }
+
+    private GameObject createFlier(final int x, final int y) {
+        return createUnit( testUnitType( "Flier", BaseModule.createWithStandardResourceCost()
+                                                            .maxHealth( 1 )
+                                                            .armor( 1 )
+                                                            .viewRange( 10 )
+                                                            .supportedLayers( LevelType.values() ),
+                                         MobilityModule.createWithStandardResourceCost()
+                                                       .movementSpeed( 20 )
+                                                       .movementCost( ImmutableMap.of( LevelType.GROUND, 3d, LevelType.SKY, 1d ) )
+                                                       .levelingCost( ImmutableMap.of( LevelType.GROUND, 1d ) ) ), x, y );
+    }
 }
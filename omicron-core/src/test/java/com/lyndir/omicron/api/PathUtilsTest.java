@@ -0,0 +1,102 @@
+package com.lyndir.omicron.api;
+
+import static org.testng.Assert.*;
+
+import com.lyndir.lhunath.opal.math.Side;
+import com.lyndir.lhunath.opal.math.Size;
+import com.lyndir.omicron.api.util.IndexPath;
+import com.lyndir.omicron.api.util.IntIntToDoubleFunction;
+import com.lyndir.omicron.api.util.PathUtils;
+import java.util.*;
+import org.testng.annotations.Test;
+
+
+/**
+ * @author lhunath, 2014-09-19
+ */
+public class PathUtilsTest extends AbstractTest {
+
+    @Test
+    public void testFindShortest()
+            throws Exception {
+
+        // A wall of expensive tiles with a cheap gap at the bottom.
+        Level level = new Level( new Size( 20, 20 ), LevelType.GROUND, IGame.LevelDensity.DENSE );
+        int width = level.getSize().getWidth();
+        IntIntToDoubleFunction costFunction = (fromIndex, toIndex) -> toIndex % width == 10 && toIndex / width != 19? 10: 1;
+
+        Random random = new Random( 42 );
+        for (int search = 0; search < 50; ++search) {
+            int root = random.nextInt( level.getTileCount() ), target = random.nextInt( level.getTileCount() );
+            double[] costs = referenceCosts( level, root, costFunction );
+
+            // A* and Dijkstra both find the cheapest path.
+            Optional<PathUtils.Path<ITile>> path = PathUtils.findShortest( level, root, target, costFunction, 1, Double.MAX_VALUE );
+            Optional<PathUtils.Path<ITile>> dijkstraPath = PathUtils.findShortest( level, root, target, costFunction, 0, Double.MAX_VALUE );
+            assertEquals( path.get().getCost(), costs[target], 0.0001 );
+            assertEquals( dijkstraPath.get().getCost(), costs[target], 0.0001 );
+            assertEquals( path.get().getTarget().getIndex(), target );
+
+            // The path is made of neighbouring steps from the root, each with its cost.
+            PathUtils.Path<ITile> step = path.get();
+            while (step.getParent().isPresent()) {
+                PathUtils.Path<ITile> parent = step.getParent().get();
+                assertEquals( step.getCost() - parent.getCost(),
+                              costFunction.applyAsDouble( parent.getTarget().getIndex(), step.getTarget().getIndex() ), 0.0001 );
+                assertTrue( parent.getTarget().neighbours().contains( step.getTarget() ) );
+                step = parent;
+            }
+            assertEquals( step.getTarget().getIndex(), root );
+
+            // The primitive search finds the same tiles, without linking them up.
+            IndexPath indexPath = PathUtils.findShortestIndexes( level, root, target, costFunction, 1, Double.MAX_VALUE ).get();
+            assertEquals( indexPath.getCost(), path.get().getCost() );
+            assertEquals( indexPath.getRootIndex(), root );
+            step = path.get();
+            for (int i = indexPath.getLength() - 1; i >= 0; --i, step = step.getParent().orElse( null ))
+                assertEquals( indexPath.getIndex( i ), step.getTarget().getIndex() );
+            assertNull( step );
+
+            // Paths that cost too much are abandoned.
+            if (costs[target] > 0)
+                assertFalse( PathUtils.findShortest( level, root, target, costFunction, 1, costs[target] - 0.5 ).isPresent() );
+
+            // The generic search finds the nearest tile by cost as well.
+            Optional<PathUtils.Path<ITile>> genericPath = PathUtils.<ITile, ITile>find(
+                    level.tileAt( root ), tile -> tile.getIndex() == target,
+                    tileStep -> costFunction.applyAsDouble( tileStep.getFrom().getIndex(), tileStep.getTo().getIndex() ), Double.MAX_VALUE,
+                    (PathUtils.NeighbourVisitor<ITile>) ITile::forEachNeighbour );
+            assertEquals( genericPath.get().getCost(), costs[target], 0.0001 );
+            Optional<PathUtils.Path<ITile>> primitiveGenericPath = PathUtils.<ITile, ITile>find(
+                    level.tileAt( root ), tile -> tile.getIndex() == target,
+                    (from, to) -> costFunction.applyAsDouble( from.getIndex(), to.getIndex() ), Double.MAX_VALUE,
+                    (PathUtils.NeighbourVisitor<ITile>) ITile::forEachNeighbour );
+            assertEquals( primitiveGenericPath.get().getCost(), costs[target], 0.0001 );
+        }
+    }
+
+    /**
+     * @return The cost of the cheapest path from the root to each tile of the level, by relaxing every step until no cost changes.
+     */
+    private static double[] referenceCosts(final Level level, final int root, final IntIntToDoubleFunction costFunction) {
+        double[] costs = new double[level.getTileCount()];
+        Arrays.fill( costs, Double.MAX_VALUE );
+        costs[root] = 0;
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int index = 0; index < costs.length; ++index)
+                if (costs[index] < Double.MAX_VALUE)
+                    for (final Side side : Side.values()) {
+                        int neighbour = level.neighbourIndex( index, side );
+                        if (neighbour >= 0 && costs[index] + costFunction.applyAsDouble( index, neighbour ) < costs[neighbour]) {
+                            costs[neighbour] = costs[index] + costFunction.applyAsDouble( index, neighbour );
+                            changed = true;
+                        }
+                    }
+        }
+
+        return costs;
+    }
+}
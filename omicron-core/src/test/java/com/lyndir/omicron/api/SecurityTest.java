@@ -0,0 +1,105 @@
+package com.lyndir.omicron.api;
+
+import static org.testng.Assert.*;
+
+import java.util.concurrent.*;
+import org.testng.annotations.Test;
+
+
+/**
+ * @author lhunath, 2014-09-17
+ */
+public class SecurityTest extends AbstractTest {
+
+    @Test
+    public void testJobs()
+            throws Exception {
+
+        Player otherPlayer = new Player( 42, null, "otherPlayer", Color.Template.randomColor(), Color.Template.randomColor() );
+        assertFalse( Security.isGod() );
+        assertSame( Security.currentPlayer(), staticPlayer );
+
+        Security.godRun( () -> {
+            assertTrue( Security.isGod() );
+            assertSame( Security.currentPlayer(), staticPlayer );
+
+            Security.playerRun( otherPlayer, () -> {
+                assertFalse( Security.isGod() );
+                assertSame( Security.currentPlayer(), otherPlayer );
+
+                Security.godRun( () -> {
+                    assertTrue( Security.isGod() );
+                    assertSame( Security.currentPlayer(), otherPlayer );
+                } );
+                assertFalse( Security.isGod() );
+                assertSame( Security.currentPlayer(), otherPlayer );
+            } );
+
+            assertTrue( Security.isGod() );
+            assertSame( Security.currentPlayer(), staticPlayer );
+        } );
+
+        assertFalse( Security.isGod() );
+        assertSame( Security.currentPlayer(), staticPlayer );
+    }
+
+    @Test
+    public void testCapture()
+            throws Exception {
+
+        Player otherPlayer = new Player( 42, null, "otherPlayer", Color.Template.randomColor(), Color.Template.randomColor() );
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Without a captured context, the executor's thread is not authenticated.
+            assertFalse( executor.submit( Security::isAuthenticated ).get() );
+
+            Security.playerRun( otherPlayer, () -> Security.godRun( () -> {
+                Security.Snapshot snapshot = Security.capture();
+                try {
+                    executor.submit( snapshot.wrap( () -> {
+                        assertTrue( Security.isGod() );
+                        assertSame( Security.currentPlayer(), otherPlayer );
+                        assertSame( Security.currentGame(), staticGame );
+                    } ) ).get();
+                }
+                catch (InterruptedException | ExecutionException e) {
+                    throw new AssertionError( e );
+                }
+            } ) );
+
+            // The captured context is gone when the job is done.
+            assertFalse( executor.submit( Security::isAuthenticated ).get() );
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testBenchmark()
+            throws Exception {
+
+        int queries = 10000000, gods = 0;
+
+        long startNanos = System.nanoTime();
+        for (int q = 0; q < queries; ++q)
+            gods += Security.isGod()? 1: 0;
+        long isGodNanos = System.nanoTime() - startNanos;
+
+        startNanos = System.nanoTime();
+        for (int q = 0; q < queries; ++q)
+            gods += Security.currentPlayer() == staticPlayer? 0: 1;
+        long currentPlayerNanos = System.nanoTime() - startNanos;
+
+        startNanos = System.nanoTime();
+        int[] jobs = { 0 };
+        for (int q = 0; q < queries; ++q)
+            Security.playerRun( staticPlayer, () -> Security.godRun( () -> { ++jobs[0]; } ) );
+        long jobNanos = System.nanoTime() - startNanos;
+
+        assertEquals( gods, 0 );
+        assertEquals( jobs[0], queries );
+        logger.inf( "isGod: %dns, currentPlayer: %dns, playerRun + godRun: %dns", //
+                    isGodNanos / queries, currentPlayerNanos / queries, jobNanos / queries );
+    }
+}
@@ -0,0 +1,75 @@
+package com.lyndir.omicron.api;
+
+import static org.testng.Assert.*;
+
+import com.google.common.collect.ImmutableList;
+import com.lyndir.lhunath.opal.math.Size;
+import com.lyndir.omicron.api.util.RadiusOffsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.testng.annotations.Test;
+
+
+/**
+ * @author lhunath, 2014-09-14
+ */
+public class SpawnPlacerTest extends AbstractTest {
+
+    @Test
+    public void testPlacement()
+            throws Exception {
+
+        List<Level> levels = generate( 42, IGame.GameResourceConfigs.PLENTY );
+        Level ground = levels.get( 0 ), sky = levels.get( 1 );
+        SpawnPlacer placer = new SpawnPlacer( ground, sky, 4, new GameRandom( 42 ).split( GameRandom.Stream.WORLD ) );
+        SpawnPlacer samePlacer = new SpawnPlacer( ground, sky, 4, new GameRandom( 42 ).split( GameRandom.Stream.WORLD ) );
+
+        int width = ground.getSize().getWidth();
+        int minDistance = (int) Math.sqrt( ground.getTileCount() / 4d ) / 2;
+        ImmutableList.Builder<Tile> engineerTiles = ImmutableList.builder();
+        for (int p = 0; p < 4; ++p) {
+            Tile[] spawn = placer.place( staticPlayer );
+            Tile[] sameSpawn = samePlacer.place( staticPlayer );
+
+            // The same seed picks the same spawns.
+            assertEquals( sameSpawn, spawn );
+
+            // The engineer stands on metals, the airship and scout next to it.
+            assertTrue( ground.getResources().getQuantity( ResourceType.METALS, spawn[0].getIndex() ) > 0 );
+            assertEquals( spawn[1].getLevel(), sky );
+            assertEquals( RadiusOffsets.distance( spawn[1].getPosition().getX() - spawn[0].getPosition().getX(),
+                                                  spawn[1].getPosition().getY() - spawn[0].getPosition().getY() ), 1 );
+            assertEquals( spawn[2].getLevel(), ground );
+            assertEquals( RadiusOffsets.distance( spawn[2].getPosition().getX() - spawn[0].getPosition().getX(),
+                                                  spawn[2].getPosition().getY() - spawn[0].getPosition().getY() ), 1 );
+            engineerTiles.add( spawn[0] );
+        }
+
+        // Players are kept apart.
+        List<Tile> spawns = engineerTiles.build();
+        for (final Tile spawn : spawns)
+            for (final Tile otherSpawn : spawns)
+                if (spawn != otherSpawn)
+                    assertTrue( RadiusOffsets.distance( spawn.getIndex() % width - otherSpawn.getIndex() % width,
+                                                        spawn.getIndex() / width - otherSpawn.getIndex() / width ) >= minDistance );
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testNoCandidates()
+            throws Exception {
+
+        List<Level> levels = generate( 42, IGame.GameResourceConfigs.NONE );
+        new SpawnPlacer( levels.get( 0 ), levels.get( 1 ), 4, new GameRandom( 42 ).split( GameRandom.Stream.WORLD ) ).place( staticPlayer );
+    }
+
+    private static List<Level> generate(final long seed, final IGame.GameResourceConfig resourceConfig) {
+        Size size = new Size( 100, 100 );
+        List<Level> levels = ImmutableList.of( new Level( size, LevelType.GROUND, IGame.LevelDensity.DENSE ),
+                                               new Level( size, LevelType.SKY, IGame.LevelDensity.SPARSE ),
+                                               new Level( size, LevelType.SPACE, IGame.LevelDensity.SPARSE ) );
+        new WorldGenerator( new GameRandom( seed ).split( GameRandom.Stream.WORLD ), resourceConfig ) //
+                .generate( levels, ForkJoinPool.commonPool() );
+
+        return levels;
+    }
+}
@@ -0,0 +1,183 @@
+package com.lyndir.omicron.api;
+
+import static org.testng.Assert.*;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.lyndir.lhunath.opal.math.Vec2;
+import com.lyndir.omicron.api.view.GameObjectInfo;
+import com.lyndir.omicron.api.view.ModuleInfo;
+import java.util.*;
+import java.util.stream.Collectors;
+import org.testng.annotations.Test;
+
+
+/**
+ * @author lhunath, 2014-09-15
+ */
+public class VisibilityTest extends AbstractTest {
+
+    @Test
+    public void testViewMask()
+            throws Exception {
+
+        for (int range = 0; range < 8; ++range) {
+            ViewMask mask = ViewMask.of( range );
+            assertSame( ViewMask.of( range ), mask );
+
+            for (int dy = -range - 1; dy <= range + 1; ++dy)
+                for (int dx = -range - 1; dx <= range + 1; ++dx)
+                    assertEquals( mask.contains( dx, dy ), Vec2.create().distanceTo( Vec2.create( dx, dy ) ) <= range,
+                                  String.format( "range: %d, offset: (%d, %d)", range, dx, dy ) );
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdates()
+            throws Exception {
+
+        GameObject near = createUnit( testUnitType( "Watcher", newBase( 2 ) ), 2, 2 );
+        assertObserves( near );
+
+        // Overlapping views.
+        GameObject far = createUnit( testUnitType( "Watcher", newBase( 3 ) ), 5, 4 );
+        assertObserves( near, far );
+
+        // Move.
+        Level ground = staticGame.getLevel( LevelType.GROUND );
+        near.getController().setLocation( ground.tileAt( ground.tileIndex( 7, 8 ) ) );
+        assertObserves( near, far );
+
+        // Loss.
+        far.getController().setOwner( null );
+        assertObserves( near );
+
+        // Gain.
+        far.getController().setOwner( staticPlayer );
+        assertObserves( near, far );
+
+        // Death.
+        near.getController().die();
+        far.getController().die();
+        assertObserves();
+    }
+
+    @Test
+    public void testObservableTiles()
+            throws Exception {
+
+        GameObject near = createUnit( testUnitType( "Watcher", newBase( 2 ) ), 2, 2 );
+        GameObject far = createUnit( testUnitType( "Watcher", newBase( 3 ) ), 4, 3 );
+        createUnit( testUnitType( "Blind" ), 9, 9 );
+
+        // Overlapping views are reported once, only on the level of the watchers.
+        Set<ITile> expected = new HashSet<>();
+        Level ground = staticGame.getLevel( LevelType.GROUND );
+        for (int index = 0; index < ground.getTileCount(); ++index)
+            for (final GameObject watcher : ImmutableList.of( near, far ))
+                if (watcher.getLocationUnchecked().getPosition().distanceTo( ground.tileAt( index ).getPosition() ) <= //
+                    watcher.getBaseModule().getViewRange())
+                    expected.add( ground.tileAt( index ) );
+
+        List<ITile> observableTiles = staticPlayer.observableTiles().collect( Collectors.toList() );
+        assertEquals( observableTiles.size(), expected.size() );
+        assertEquals( ImmutableSet.copyOf( observableTiles ), expected );
+        assertEquals( staticPlayer.getController().observableTileIndexes( ground ).mapToObj( ground::tileAt ) //
+                                  .collect( Collectors.toSet() ), expected );
+        assertEquals( staticPlayer.getController().observableTileIndexes( staticGame.getLevel( LevelType.SKY ) ).count(), 0 );
+    }
+
+    @Test
+    public void testInterests()
+            throws Exception {
+
+        Game.Builder builder = newGameBuilder();
+        Player otherPlayer = builder.addPlayer( new PlayerKey(), "otherPlayer", Color.Template.randomColor(), //
+                                                Color.Template.randomColor() );
+        staticGame = builder.build();
+
+        GameObject watcher = createUnit( testUnitType( "Watcher", newBase( 2 ) ), 2, 2 );
+        GameObject otherWatcher = createUnit( testUnitType( "Watcher", newBase( 1 ) ), staticGame, otherPlayer, 8, 8 );
+        List<Player> receivers = new ArrayList<>();
+        staticGame.getController().addGameListeners( ImmutableMap.of( new GameListener() {
+            @Override
+            public void onUnitDied(final IGameObject gameObject) {
+                receivers.add( staticPlayer );
+            }
+        }, staticPlayer, new GameListener() {
+            @Override
+            public void onUnitDied(final IGameObject gameObject) {
+                receivers.add( otherPlayer );
+            }
+        }, otherPlayer ) );
+
+        // Events on a tile go to the players that observe the tile.
+        Level ground = staticGame.getLevel( LevelType.GROUND );
+        staticGame.getController().fireIfObservable( ground.tileAt( ground.tileIndex( 3, 2 ) ) ).onUnitDied( watcher );
+        assertEquals( receivers, ImmutableList.of( staticPlayer ) );
+        receivers.clear();
+        staticGame.getController().fireIfObservable( ground.tileAt( ground.tileIndex( 8, 7 ) ) ).onUnitDied( watcher );
+        assertEquals( receivers, ImmutableList.of( otherPlayer ) );
+        receivers.clear();
+        staticGame.getController().fireIfObservable( ground.tileAt( ground.tileIndex( 5, 5 ) ) ).onUnitDied( watcher );
+        assertEquals( receivers, ImmutableList.of() );
+
+        // Events on an object also go to its owner, and follow the observers as they move.
+        Security.playerRun( otherPlayer, () -> otherWatcher.getController().setLocation( ground.tileAt( ground.tileIndex( 3, 2 ) ) ) );
+        staticGame.getController().fireIfObservable( watcher ).onUnitDied( watcher );
+        assertEquals( receivers, ImmutableList.of( staticPlayer, otherPlayer ) );
+        receivers.clear();
+        staticGame.getController().fireIfObservable( ground.tileAt( ground.tileIndex( 8, 7 ) ) ).onUnitDied( watcher );
+        assertEquals( receivers, ImmutableList.of() );
+    }
+
+    @Test
+    public void testObservedObjects()
+            throws Exception {
+
+        Game.Builder builder = newGameBuilder();
+        Player otherPlayer = builder.addPlayer( new PlayerKey(), "otherPlayer", Color.Template.randomColor(), //
+                                                Color.Template.randomColor() );
+        staticGame = builder.build();
+
+        GameObject watcher = createUnit( testUnitType( "Watcher", newBase( 2 ) ), 2, 2 );
+        GameObject near = createUnit( testUnitType( "Near", newBase( 1 ) ), staticGame, otherPlayer, 3, 2 );
+        createUnit( testUnitType( "Far", newBase( 1 ) ), staticGame, otherPlayer, 8, 8 );
+
+        // Our snapshot includes the objects we observe, with their modules.
+        Map<IGameObject, GameObjectInfo> observedObjects = staticPlayer.getController().observedObjects().collect(
+                Collectors.toMap( GameObjectInfo::getGameObject, info -> info ) );
+        assertEquals( observedObjects.keySet(), ImmutableSet.of( watcher, near ) );
+        assertEquals( observedObjects.get( near ).getOwner(), Optional.of( otherPlayer ) );
+        assertEquals( observedObjects.get( near ).getLocation(), near.getLocationUnchecked() );
+        assertEquals( observedObjects.get( near ).getModule( ModuleInfo.Base.class ).get().getViewRange(), 1 );
+
+        // Another player's snapshot is limited to what we observe as well.
+        assertEquals( otherPlayer.getController().observedObjects().map( GameObjectInfo::getGameObject ).collect( Collectors.toSet() ),
+                      ImmutableSet.of( watcher, near ) );
+    }
+
+    private static BaseModule newBase(final int viewRange) {
+        return BaseModule.createWithStandardResourceCost()
+                         .maxHealth( 1 )
+                         .armor( 0 )
+                         .viewRange( viewRange )
+                         .supportedLayers( LevelType.GROUND );
+    }
+
+    private void assertObserves(final GameObject... watchers) {
+        for (final LevelType levelType : LevelType.values()) {
+            Level level = staticGame.getLevel( levelType );
+            for (int index = 0; index < level.getTileCount(); ++index) {
+                Tile tile = level.tileAt( index );
+                boolean expected = false;
+                for (final GameObject watcher : watchers)
+                    expected |= watcher.getLocationUnchecked().getPosition().distanceTo( tile.getPosition() ) <= //
+                                watcher.getBaseModule().getViewRange();
+
+                assertEquals( staticPlayer.getController().canObserve( tile ).isTrue(), expected, tile.toString() );
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.lyndir.omicron.api;
+
+import static org.testng.Assert.*;
+
+import com.google.common.collect.ImmutableList;
+import com.lyndir.lhunath.opal.math.Size;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import org.testng.annotations.Test;
+
+
+/**
+ * @author lhunath, 2014-09-12
+ */
+public class WorldGeneratorTest extends AbstractTest {
+
+    @Test
+    public void testDeterministic()
+            throws Exception {
+
+        List<Level> sequential = generate( 42, 1 );
+        List<Level> parallel = generate( 42, 4 );
+        List<Level> otherSeed = generate( 43, 4 );
+
+        // All of the resource is deposited, split evenly over the levels that support it.
+        for (final ResourceType resourceType : ResourceType.values()) {
+            int quantity = IGame.GameResourceConfigs.LOTS.quantity( resourceType );
+            List<Level> supportingLevels = sequential.stream()
+                                                     .filter( level -> level.getType().getSupportedResources().contains( resourceType ) )
+                                                     .collect( Collectors.toList() );
+            for (int l = 0; l < supportingLevels.size(); ++l)
+                assertEquals( supportingLevels.get( l ).getResources().getTotalQuantity( resourceType ),
+                              quantity / supportingLevels.size() + (l < quantity % supportingLevels.size()? 1: 0) );
+        }
+
+        boolean differs = false;
+        for (int l = 0; l < sequential.size(); ++l)
+            for (final ResourceType resourceType : sequential.get( l ).getType().getSupportedResources()) {
+                for (int index = 0; index < sequential.get( l ).getTileCount(); ++index) {
+                    // The same seed deposits the same resources, regardless of the amount of threads.
+                    assertEquals( parallel.get( l ).getResources().getQuantity( resourceType, index ),
+                                  sequential.get( l ).getResources().getQuantity( resourceType, index ) );
+                    differs |= otherSeed.get( l ).getResources().getQuantity( resourceType, index ) != //
+                               sequential.get( l ).getResources().getQuantity( resourceType, index );
+                }
+            }
+        assertTrue( differs );
+    }
+
+    private static List<Level> generate(final long seed, final int parallelism) {
+        Size size = new Size( 150, 100 );
+        List<Level> levels = ImmutableList.of( new Level( size, LevelType.GROUND, IGame.LevelDensity.DENSE ),
+                                               new Level( size, LevelType.SKY, IGame.LevelDensity.SPARSE ),
+                                               new Level( size, LevelType.SPACE, IGame.LevelDensity.SPARSE ) );
+
+        ForkJoinPool pool = new ForkJoinPool( parallelism );
+        try {
+            new WorldGenerator( new GameRandom( seed ).split( GameRandom.Stream.WORLD ), IGame.GameResourceConfigs.LOTS ) //
+                    .generate( levels, pool );
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        return levels;
+    }
+}